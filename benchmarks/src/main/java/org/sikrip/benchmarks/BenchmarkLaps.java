@@ -0,0 +1,65 @@
+package org.sikrip.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.sikrip.LapData;
+import org.sikrip.LapGenerator;
+import org.sikrip.LatLonSpeedCsvParser;
+
+/**
+ * Lap inputs shared by the benchmarks: the bundled sample laps and synthetic laps of any size generated
+ * along the bundled lap's outline.
+ */
+final class BenchmarkLaps {
+
+    static final String LAP_A = "1m34.344s.csv";
+    static final String LAP_B = "1m53.819s.csv";
+
+    private BenchmarkLaps() {
+    }
+
+    static byte[] resource(String name) throws IOException {
+        try (InputStream in = BenchmarkLaps.class.getClassLoader().getResourceAsStream(name)) {
+            return in.readAllBytes();
+        }
+    }
+
+    static LapData bundled(String name) throws IOException {
+        try (InputStream in = BenchmarkLaps.class.getClassLoader().getResourceAsStream(name)) {
+            return LatLonSpeedCsvParser.parse(in);
+        }
+    }
+
+    /**
+     * One lap around the outline with {@code points} samples, generated by {@link LapGenerator}. Lap B
+     * ({@code b = true}) drives off the outline's line by up to 1.5 m, varies its pace by up to 5% and
+     * has 0.5 m of GPS noise.
+     */
+    static LapData synthetic(LapData outline, int points, boolean b) {
+        final LapGenerator generator = new LapGenerator(outline);
+        generator.rateHz(points / generator.outlinePeriod());
+        if (b) {
+            generator.lineOffset(1.5).speedVariation(0.05).gpsNoise(0.5).seed(2);
+        }
+        return generator.generate(points);
+    }
+
+    /**
+     * Renders a lap as {@code lat,lon,speed} CSV.
+     */
+    static byte[] csv(LapData lap) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(lap.size() * 48);
+        final StringBuilder row = new StringBuilder(64);
+        out.writeBytes("lat,lon,speed\n".getBytes(StandardCharsets.US_ASCII));
+        for (int i = 0; i < lap.size(); i++) {
+            row.setLength(0);
+            row.append(lap.channel(LapData.LAT).get(i)).append(',')
+                .append(lap.channel(LapData.LON).get(i)).append(',')
+                .append(lap.channel(LapData.SPEED).get(i)).append('\n');
+            out.writeBytes(row.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+        return out.toByteArray();
+    }
+}
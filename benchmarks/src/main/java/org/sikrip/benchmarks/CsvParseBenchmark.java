@@ -0,0 +1,92 @@
+package org.sikrip.benchmarks;
+
+import com.opencsv.CSVReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sikrip.LapData;
+import org.sikrip.LatLonSpeedCsvParser;
+
+/**
+ * Compares the streaming primitive parser against the previous OpenCSV + {@code List<Double>} path.
+ * The input is the bundled sample lap repeated until it has {@code rows} data rows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvParseBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private byte[] csv;
+
+    @Setup
+    public void setUp() throws Exception {
+        final byte[] sample;
+        try (InputStream in = CsvParseBenchmark.class.getClassLoader().getResourceAsStream("1m34.344s.csv")) {
+            sample = in.readAllBytes();
+        }
+        int bodyStart = 0;
+        while (sample[bodyStart++] != '\n') {
+            // skip header
+        }
+        final byte[] header = Arrays.copyOfRange(sample, 0, bodyStart);
+        final String[] body = new String(sample, bodyStart, sample.length - bodyStart).split("\r?\n");
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(header);
+        for (int i = 0; i < rows; i++) {
+            out.write(body[i % body.length].getBytes());
+            out.write('\n');
+        }
+        csv = out.toByteArray();
+    }
+
+    @Benchmark
+    public LapData primitiveParser() throws Exception {
+        return LatLonSpeedCsvParser.parse(new ByteArrayInputStream(csv));
+    }
+
+    @Benchmark
+    public LapData openCsvBaseline() throws Exception {
+        try (CSVReader reader = new CSVReader(new InputStreamReader(new ByteArrayInputStream(csv)))) {
+            final List<Double> latList = new ArrayList<>();
+            final List<Double> lonList = new ArrayList<>();
+            final List<Double> speedList = new ArrayList<>();
+
+            reader.readNext(); // skip header
+            String[] line;
+            while ((line = reader.readNext()) != null) {
+                latList.add(Double.parseDouble(line[0]));
+                lonList.add(Double.parseDouble(line[1]));
+                speedList.add(Double.parseDouble(line[2]));
+            }
+
+            return new LapData(
+                latList.stream().mapToDouble(d -> d).toArray(),
+                lonList.stream().mapToDouble(d -> d).toArray(),
+                speedList.stream().mapToDouble(d -> d).toArray()
+            );
+        }
+    }
+}
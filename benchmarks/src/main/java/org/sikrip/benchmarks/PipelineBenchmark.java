@@ -0,0 +1,124 @@
+package org.sikrip.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.knowm.xchart.XYChart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sikrip.ComparisonCharts;
+import org.sikrip.GridIndex;
+import org.sikrip.LapComparisonByLocation;
+import org.sikrip.LapData;
+import org.sikrip.LapMapping;
+import org.sikrip.LatLonSpeedCsvParser;
+import org.sikrip.ProjectedLap;
+
+/**
+ * Time of every stage of a two lap comparison, each measured on the previous stages' precomputed output,
+ * plus the whole pipeline from CSV bytes to charts.
+ * <p>
+ * {@code lap} is either {@code bundled} (the two sample laps, the baseline) or a number of points: lap A
+ * is then one lap of that many samples generated along the sample lap's outline, and lap B the same
+ * with racing line, pace and GPS noise variations, see {@link BenchmarkLaps#synthetic}. Compare runs
+ * with {@code -rf json} to gate regressions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+    @Param({"bundled", "1000", "100000", "1000000", "10000000"})
+    public String lap;
+
+    private byte[] csvA;
+    private byte[] csvB;
+    private LapData lapA;
+    private LapData lapB;
+    private ProjectedLap projA;
+    private ProjectedLap projB;
+    private GridIndex indexB;
+    private LapMapping mapping;
+    private double[] x;
+    private double[] y;
+
+    @Setup
+    public void setUp() throws Exception {
+        if ("bundled".equals(lap)) {
+            csvA = BenchmarkLaps.resource(BenchmarkLaps.LAP_A);
+            csvB = BenchmarkLaps.resource(BenchmarkLaps.LAP_B);
+            lapA = BenchmarkLaps.bundled(BenchmarkLaps.LAP_A);
+            lapB = BenchmarkLaps.bundled(BenchmarkLaps.LAP_B);
+        } else {
+            final LapData outline = BenchmarkLaps.bundled(BenchmarkLaps.LAP_A);
+            final int points = Integer.parseInt(lap);
+            lapA = BenchmarkLaps.synthetic(outline, points, false);
+            lapB = BenchmarkLaps.synthetic(outline, points, true);
+            csvA = BenchmarkLaps.csv(lapA);
+            csvB = BenchmarkLaps.csv(lapB);
+        }
+        projA = ProjectedLap.of(lapA);
+        projB = ProjectedLap.of(lapB, projA.projector);
+        indexB = GridIndex.of(projB.x, projB.y);
+        mapping = LapMapping.onSegments(projA.x, projA.y, projB.x, projB.y, indexB);
+        x = new double[lapA.size()];
+        y = new double[lapA.size()];
+    }
+
+    @Benchmark
+    public LapData csvLoad() throws Exception {
+        return LatLonSpeedCsvParser.parse(new ByteArrayInputStream(csvA));
+    }
+
+    @Benchmark
+    public double[] projection() {
+        LapComparisonByLocation.latLonToUTM(lapA.lat(), lapA.lon(), x, y);
+        return x;
+    }
+
+    @Benchmark
+    public GridIndex spatialIndex() {
+        return GridIndex.of(projB.x, projB.y);
+    }
+
+    @Benchmark
+    public LapMapping matching() {
+        return LapMapping.onSegments(projA.x, projA.y, projB.x, projB.y, indexB);
+    }
+
+    @Benchmark
+    public LapData applyMapping() {
+        return mapping.apply(lapB);
+    }
+
+    @Benchmark
+    public double[] cumulativeDistance() {
+        return LapComparisonByLocation.computeCumulativeDistance(projA.x, projA.y);
+    }
+
+    @Benchmark
+    public List<XYChart> chartSeries() {
+        return ComparisonCharts.build(projA, projB, mapping);
+    }
+
+    @Benchmark
+    public List<XYChart> fullPipeline() throws Exception {
+        final ProjectedLap a = ProjectedLap.of(LatLonSpeedCsvParser.parse(new ByteArrayInputStream(csvA)));
+        final ProjectedLap b = ProjectedLap.of(
+            LatLonSpeedCsvParser.parse(new ByteArrayInputStream(csvB)), a.projector
+        );
+        return ComparisonCharts.build(a, b);
+    }
+}
@@ -0,0 +1,84 @@
+package org.sikrip.benchmarks;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import org.locationtech.proj4j.CRSFactory;
+import org.locationtech.proj4j.CoordinateTransform;
+import org.locationtech.proj4j.CoordinateTransformFactory;
+import org.locationtech.proj4j.ProjCoordinate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sikrip.LapComparisonByLocation;
+import org.sikrip.LapData;
+import org.sikrip.LatLonSpeedCsvParser;
+
+/**
+ * Projection throughput and allocation rate. Run with {@code -prof gc}: the bulk path should report
+ * close to zero {@code gc.alloc.rate.norm} per operation, the per-point baseline two
+ * {@code ProjCoordinate} objects per sample.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectionBenchmark {
+
+    @Param({"1000", "100000"})
+    public int points;
+
+    private double[] lat;
+    private double[] lon;
+    private double[] x;
+    private double[] y;
+    private CoordinateTransform transform;
+
+    @Setup
+    public void setUp() throws Exception {
+        final LapData sample;
+        try (InputStream in = ProjectionBenchmark.class.getClassLoader().getResourceAsStream("1m34.344s.csv")) {
+            sample = LatLonSpeedCsvParser.parse(in);
+        }
+        lat = new double[points];
+        lon = new double[points];
+        for (int i = 0; i < points; i++) {
+            lat[i] = sample.channel(LapData.LAT).get(i % sample.size());
+            lon[i] = sample.channel(LapData.LON).get(i % sample.size());
+        }
+        x = new double[points];
+        y = new double[points];
+
+        final CRSFactory crsFactory = new CRSFactory();
+        transform = new CoordinateTransformFactory().createTransform(
+            crsFactory.createFromName("epsg:4326"), crsFactory.createFromName("epsg:32634")
+        );
+    }
+
+    @Benchmark
+    public double[] bulk() {
+        LapComparisonByLocation.latLonToUTM(lat, lon, x, y);
+        return x;
+    }
+
+    @Benchmark
+    public double[] perPointBaseline() {
+        for (int i = 0; i < lat.length; i++) {
+            final ProjCoordinate src = new ProjCoordinate(lon[i], lat[i]);
+            final ProjCoordinate dst = new ProjCoordinate();
+            transform.transform(src, dst);
+            x[i] = dst.x;
+            y[i] = dst.y;
+        }
+        return x;
+    }
+}
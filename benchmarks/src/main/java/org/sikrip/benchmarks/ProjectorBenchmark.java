@@ -0,0 +1,88 @@
+package org.sikrip.benchmarks;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sikrip.LapData;
+import org.sikrip.LatLonSpeedCsvParser;
+import org.sikrip.ParallelProjection;
+import org.sikrip.Proj4jProjector;
+import org.sikrip.Projector;
+import org.sikrip.TransverseMercatorProjector;
+
+/**
+ * Points per second of the {@link Projector} implementations, sequential and through
+ * {@link ParallelProjection}. Their agreement is checked by {@code TransverseMercatorProjectorTest}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectorBenchmark {
+
+    private static final int POINTS = 100_000;
+    private static final int UTM_ZONE = 34;
+
+    private final double[] lat = new double[POINTS];
+    private final double[] lon = new double[POINTS];
+    private final double[] x = new double[POINTS];
+    private final double[] y = new double[POINTS];
+
+    private final Projector proj4j = new Proj4jProjector(UTM_ZONE, true);
+    private final Projector transverseMercator = new TransverseMercatorProjector(UTM_ZONE, true);
+
+    @Setup
+    public void setUp() throws Exception {
+        final LapData lapA = load("1m34.344s.csv");
+        for (int i = 0; i < POINTS; i++) {
+            lat[i] = lapA.channel(LapData.LAT).get(i % lapA.size());
+            lon[i] = lapA.channel(LapData.LON).get(i % lapA.size());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] proj4j() {
+        proj4j.project(lat, lon, x, y);
+        return x;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] transverseMercator() {
+        transverseMercator.project(lat, lon, x, y);
+        return x;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] proj4jParallel() {
+        ParallelProjection.project(proj4j, lat, lon, x, y);
+        return x;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] transverseMercatorParallel() {
+        ParallelProjection.project(transverseMercator, lat, lon, x, y);
+        return x;
+    }
+
+    private static LapData load(String resourceName) throws Exception {
+        try (InputStream in = ProjectorBenchmark.class.getClassLoader().getResourceAsStream(resourceName)) {
+            return LatLonSpeedCsvParser.parse(in);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.sikrip;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Compares every lap of a session against the fastest one.
+ * <p>
+ * The laps are loaded in parallel and the fastest one is prepared once (projection and spatial index) and
+ * shared read-only. Every other lap is projected once, straight into the reference's frame, and matched
+ * against it in parallel; only the reference is indexed. The result is a table
+ * of the time each lap lost to the reference, in total and per sector of the reference lap's distance.
+ * <p>
+ * Usage: {@code BatchComparison [--sector=<metres>] <lap files or directories...>}
+ */
+public class BatchComparison {
+
+    static final double DEFAULT_SECTOR_LENGTH = 500.0;
+
+    /**
+     * Time lost by one lap against the reference, in seconds.
+     */
+    public record LapLoss(String name, double lapTime, double totalLoss, double[] sectorLoss) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        double sectorLength = DEFAULT_SECTOR_LENGTH;
+        final List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--sector=")) {
+                sectorLength = Double.parseDouble(arg.substring("--sector=".length()));
+            } else {
+                files.addAll(lapFiles(Path.of(arg)));
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: BatchComparison [--sector=<metres>] <lap files or directories...>");
+            System.exit(1);
+        }
+
+        final long start = System.nanoTime();
+        final List<LapLoss> losses = compare(files, sectorLength);
+        final double seconds = (System.nanoTime() - start) / 1e9;
+
+        printTable(losses, sectorLength);
+        System.out.printf("%n%d laps compared in %.2f s%n", losses.size(), seconds);
+    }
+
+    /**
+     * Loads the laps, picks the fastest as reference and compares every lap (the reference included) to it.
+     */
+    public static List<LapLoss> compare(List<Path> files, double sectorLength) {
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No laps to compare");
+        }
+        final List<LapData> laps = files.parallelStream()
+            .map(BatchComparison::load)
+            .toList();
+
+        final int fastest = fastest(laps);
+        final PreparedLap reference = PreparedLap.of(ProjectedLap.of(laps.get(fastest)));
+        final Projector projector = reference.projected.projector;
+
+        return IntStream.range(0, laps.size())
+            .parallel()
+            .mapToObj(i -> compare(
+                files.get(i).getFileName().toString(),
+                i == fastest ? reference.projected : ProjectedLap.of(laps.get(i), projector),
+                reference,
+                sectorLength
+            ))
+            .toList();
+    }
+
+    /**
+     * Time lost by a lap against the reference, attributed to the reference sectors in one linear pass.
+     */
+    static LapLoss compare(String name, ProjectedLap lap, PreparedLap reference, double sectorLength) {
+        final LapMapping mapping = reference.map(lap);
+        // reference time minus lap time at each lap sample, i.e. minus the time lost so far
+        final double[] delta = mapping.timeDelta(
+            lap.lap, reference.projected.lap, LapComparisonByLocation.SAMPLE_RATE_HZ
+        );
+        final double[] referenceDistance = mapping.apply(reference.projected.distance);
+
+        final double[] distance = reference.projected.distance;
+        final int sectors = Math.max(1, (int) Math.ceil(distance[distance.length - 1] / sectorLength));
+        final double[] sectorLoss = new double[sectors];
+        for (int i = 1; i < delta.length; i++) {
+            final int sector = Math.min(sectors - 1, (int) (referenceDistance[i] / sectorLength));
+            sectorLoss[sector] += delta[i - 1] - delta[i];
+        }
+        final double totalLoss = delta.length == 0 ? 0 : -delta[delta.length - 1];
+        return new LapLoss(name, PreparedLap.lapTime(lap.lap), totalLoss, sectorLoss);
+    }
+
+    /**
+     * Loads a lap file without projecting it, see {@link LapDataLoader#loadUnprojected}.
+     */
+    static LapData load(Path path) {
+        try {
+            return LapDataLoader.loadUnprojected(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load " + path, e);
+        }
+    }
+
+    /**
+     * Index of the lap with the shortest lap time.
+     */
+    static int fastest(List<LapData> laps) {
+        int fastest = 0;
+        for (int i = 1; i < laps.size(); i++) {
+            if (PreparedLap.lapTime(laps.get(i)) < PreparedLap.lapTime(laps.get(fastest))) {
+                fastest = i;
+            }
+        }
+        return fastest;
+    }
+
+    static List<Path> lapFiles(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (Stream<Path> files = Files.list(path)) {
+            return files
+                .filter(file -> file.toString().endsWith(".csv") || file.toString().endsWith(BinaryLap.EXTENSION))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static void printTable(List<LapLoss> losses, double sectorLength) {
+        final int sectors = losses.stream().mapToInt(loss -> loss.sectorLoss().length).max().orElse(0);
+        final StringBuilder header = new StringBuilder(String.format("%-24s %10s %10s", "Lap", "Time (s)", "Loss (s)"));
+        for (int s = 0; s < sectors; s++) {
+            header.append(String.format(" %9s", (int) (s * sectorLength) + "m"));
+        }
+        System.out.println(header);
+
+        for (LapLoss loss : losses) {
+            final StringBuilder row = new StringBuilder(
+                String.format("%-24s %10.3f %+10.3f", loss.name(), loss.lapTime(), loss.totalLoss())
+            );
+            for (double sector : loss.sectorLoss()) {
+                row.append(String.format(" %+9.3f", sector));
+            }
+            System.out.println(row);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package org.sikrip;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Versioned, columnar binary lap format and its memory-mapped reader.
+ * <p>
+ * Layout (little-endian): a 32 byte header followed by one column per {@link Column}, each holding
+ * {@code rows} values. Coordinate and time columns are always doubles, the other columns are doubles or
+ * floats depending on {@link #FLAG_FLOAT}. The time column is only present with {@link #FLAG_TIME}.
+ * <pre>
+ *  0  int   magic "LAPB"
+ *  4  int   version
+ *  8  int   flags
+ * 12  int   UTM zone of the x/y columns
+ * 16  long  rows
+ * 24  long  reserved
+ * </pre>
+ * Opening a file only maps it; columns are read in place without any parsing. Only the standard lat, lon,
+ * speed and time channels of a lap are stored.
+ */
+public final class BinaryLap {
+
+    public static final String EXTENSION = ".lapb";
+
+    static final int MAGIC = 'L' | 'A' << 8 | 'P' << 16 | 'B' << 24;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 32;
+
+    /**
+     * Non-coordinate columns are stored as 32 bit floats.
+     */
+    static final int FLAG_FLOAT = 1;
+
+    /**
+     * The x/y columns are in the southern hemisphere variant of the UTM zone.
+     */
+    static final int FLAG_SOUTH = 2;
+
+    /**
+     * The lap has a timestamp column (since version 2).
+     */
+    static final int FLAG_TIME = 4;
+
+    /**
+     * Columns are mapped in chunks of {@code 1 << CHUNK_SHIFT} bytes, since a single buffer is limited to
+     * 2 GB. A multiple of every value width, so no value straddles two chunks.
+     */
+    static final int CHUNK_SHIFT = 30;
+
+    public enum Column {
+        LAT(true), LON(true), SPEED(false), X(true), Y(true), DISTANCE(false), TIME(true);
+
+        private final boolean alwaysDouble;
+
+        Column(boolean alwaysDouble) {
+            this.alwaysDouble = alwaysDouble;
+        }
+
+        int width(int flags) {
+            return alwaysDouble || (flags & FLAG_FLOAT) == 0 ? Double.BYTES : Float.BYTES;
+        }
+
+        boolean presentIn(int flags) {
+            return this != TIME || (flags & FLAG_TIME) != 0;
+        }
+    }
+
+    private final int flags;
+    private final int utmZone;
+    private final int rows;
+    private final ByteBuffer[][] columns;
+    private final int chunkShift;
+    private final long chunkMask;
+
+    private BinaryLap(int flags, int utmZone, int rows, ByteBuffer[][] columns, int chunkShift) {
+        this.flags = flags;
+        this.utmZone = utmZone;
+        this.rows = rows;
+        this.columns = columns;
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+    }
+
+    /**
+     * Maps a binary lap file. The mapping stays valid after this method returns.
+     */
+    public static BinaryLap open(Path path) throws IOException {
+        return open(path, CHUNK_SHIFT);
+    }
+
+    /**
+     * Maps a binary lap file in chunks of {@code 1 << chunkShift} bytes, at least the width of a double.
+     * Small chunks let tests read across chunk boundaries without gigabyte files.
+     */
+    static BinaryLap open(Path path, int chunkShift) throws IOException {
+        if (chunkShift < 3 || chunkShift > CHUNK_SHIFT) {
+            throw new IllegalArgumentException("Invalid chunk shift " + chunkShift);
+        }
+        final long chunkMask = (1L << chunkShift) - 1;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(path + " is not a binary lap file");
+            }
+            final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a binary lap file");
+            }
+            if (header.getInt(4) < 1 || header.getInt(4) > VERSION) {
+                throw new IOException("Unsupported binary lap version " + header.getInt(4) + " in " + path);
+            }
+            final int flags = header.getInt(8);
+            final int utmZone = header.getInt(12);
+            final long rows = header.getLong(16);
+            if (rows < 0 || rows > Integer.MAX_VALUE) {
+                throw new IOException("Invalid row count " + rows + " in " + path);
+            }
+
+            final Column[] all = Column.values();
+            final ByteBuffer[][] columns = new ByteBuffer[all.length][];
+            long position = HEADER_SIZE;
+            for (Column column : all) {
+                if (!column.presentIn(flags)) {
+                    continue;
+                }
+                final long size = rows * column.width(flags);
+                if (position + size > channel.size()) {
+                    throw new IOException("Truncated binary lap file " + path);
+                }
+                final ByteBuffer[] chunks = new ByteBuffer[(int) ((size + chunkMask) >>> chunkShift)];
+                for (int c = 0; c < chunks.length; c++) {
+                    final long offset = (long) c << chunkShift;
+                    chunks[c] = channel.map(
+                        FileChannel.MapMode.READ_ONLY, position + offset, Math.min(size - offset, chunkMask + 1)
+                    ).order(ByteOrder.LITTLE_ENDIAN);
+                }
+                columns[column.ordinal()] = chunks;
+                position += size;
+            }
+            return new BinaryLap(flags, utmZone, (int) rows, columns, chunkShift);
+        }
+    }
+
+    /**
+     * Writes a projected lap. With {@code floats} the speed and distance columns are stored as floats.
+     */
+    public static void write(Path path, ProjectedLap lap, boolean floats) throws IOException {
+        if (!(lap.projector instanceof UtmProjector utm)) {
+            throw new IllegalArgumentException("Binary laps store UTM coordinates, got " + lap.projector);
+        }
+        final int flags = (floats ? FLAG_FLOAT : 0) | (utm.isNorth() ? 0 : FLAG_SOUTH)
+            | (lap.lap.has(LapData.TIME) ? FLAG_TIME : 0);
+        final int rows = lap.x.length;
+
+        try (FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(flags).putInt(utm.utmZone())
+                .putLong(rows).putLong(0L);
+
+            for (Column column : Column.values()) {
+                if (!column.presentIn(flags)) {
+                    continue;
+                }
+                final double[] values = columnOf(lap, column);
+                final int width = column.width(flags);
+                for (int i = 0; i < rows; i++) {
+                    if (buffer.remaining() < width) {
+                        drain(channel, buffer);
+                    }
+                    if (width == Double.BYTES) {
+                        buffer.putDouble(values[i]);
+                    } else {
+                        buffer.putFloat((float) values[i]);
+                    }
+                }
+            }
+            drain(channel, buffer);
+        }
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int utmZone() {
+        return utmZone;
+    }
+
+    public boolean hasTime() {
+        return Column.TIME.presentIn(flags);
+    }
+
+    public boolean isNorth() {
+        return (flags & FLAG_SOUTH) == 0;
+    }
+
+    /**
+     * Reads a single value in place. The {@link Column#TIME} column is only present if {@link #hasTime()}.
+     */
+    public double get(Column column, int row) {
+        final int width = column.width(flags);
+        // long offset: row * 8 overflows an int past 268M rows
+        final long offset = (long) row * width;
+        final ByteBuffer chunk = columns[column.ordinal()][(int) (offset >>> chunkShift)];
+        return width == Double.BYTES
+            ? chunk.getDouble((int) (offset & chunkMask))
+            : chunk.getFloat((int) (offset & chunkMask));
+    }
+
+    /**
+     * Copies a whole column into a new array.
+     */
+    public double[] toArray(Column column) {
+        final double[] values = new double[rows];
+        final int width = column.width(flags);
+        int row = 0;
+        for (ByteBuffer chunk : columns[column.ordinal()]) {
+            final int count = chunk.capacity() / width;
+            if (width == Double.BYTES) {
+                chunk.duplicate().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values, row, count);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    values[row + i] = chunk.getFloat(i * Float.BYTES);
+                }
+            }
+            row += count;
+        }
+        return values;
+    }
+
+    /**
+     * Returns the lap with its stored projection, so no parsing or re-projection is needed.
+     */
+    public ProjectedLap toProjectedLap() {
+        return new ProjectedLap(
+            toLapData(), toArray(Column.X), toArray(Column.Y), toArray(Column.DISTANCE),
+            Projector.utm(utmZone, isNorth())
+        );
+    }
+
+    /**
+     * Returns the lap's channels only, for projecting it into another frame.
+     */
+    public LapData toLapData() {
+        return new LapData(
+            toArray(Column.LAT), toArray(Column.LON), toArray(Column.SPEED), hasTime() ? toArray(Column.TIME) : null
+        );
+    }
+
+    private static double[] columnOf(ProjectedLap lap, Column column) {
+        return switch (column) {
+            case LAT -> lap.lap.lat();
+            case LON -> lap.lap.lon();
+            case SPEED -> lap.lap.speed();
+            case X -> lap.x;
+            case Y -> lap.y;
+            case DISTANCE -> lap.distance;
+            case TIME -> lap.lap.time();
+        };
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
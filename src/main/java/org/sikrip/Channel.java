@@ -0,0 +1,241 @@
+package org.sikrip;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A read-only column of lap samples, backed by a primitive array of doubles, floats or scaled shorts.
+ * <p>
+ * Channels are views: {@link #slice(int, int)} shares the backing array instead of copying it.
+ * Storing telemetry as floats halves the memory of a channel, and as shorts quarters it, for channels
+ * whose precision allows it.
+ */
+public abstract class Channel {
+
+    public enum Storage {
+        DOUBLE(Double.BYTES), FLOAT(Float.BYTES), SHORT(Short.BYTES);
+
+        private final int bytes;
+
+        Storage(int bytes) {
+            this.bytes = bytes;
+        }
+
+        public int bytesPerSample() {
+            return bytes;
+        }
+    }
+
+    final int offset;
+    final int length;
+
+    Channel(int offset, int length) {
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public static Channel of(double[] values) {
+        return new DoubleChannel(values, 0, values.length);
+    }
+
+    public static Channel ofFloats(float[] values) {
+        return new FloatChannel(values, 0, values.length);
+    }
+
+    /**
+     * Short that stands for a missing ({@code NaN}) sample in a channel of shorts.
+     */
+    public static final short MISSING_SHORT = Short.MAX_VALUE;
+
+    /**
+     * A channel of shorts decoded as {@code min + scale * (value - Short.MIN_VALUE)}, with
+     * {@link #MISSING_SHORT} decoded as {@code NaN}.
+     */
+    public static Channel ofShorts(short[] values, double min, double scale) {
+        return new ShortChannel(values, 0, values.length, min, scale);
+    }
+
+    public final int size() {
+        return length;
+    }
+
+    /**
+     * Sample {@code i} of this view, checked against {@link #size()}, so a slice never reads its parent's
+     * samples beyond its end.
+     */
+    public abstract double get(int i);
+
+    public abstract Storage storage();
+
+    /**
+     * Returns a view of samples {@code [from, to)} sharing this channel's backing array.
+     */
+    public abstract Channel slice(int from, int to);
+
+    /**
+     * Returns the samples as a double array. For an unsliced double channel this is the backing array
+     * itself, returned without copying so hot loops can read it directly; otherwise it is a fresh copy.
+     * Either way callers must treat it as read-only: writing to it would change this channel and every
+     * lap and slice sharing it. Use {@link #get(int)} to read a channel in another storage without
+     * widening it.
+     */
+    public double[] doubles() {
+        final double[] values = new double[length];
+        copyTo(values, 0);
+        return values;
+    }
+
+    /**
+     * Copies all samples into {@code dst}, starting at {@code dstOffset}.
+     */
+    public void copyTo(double[] dst, int dstOffset) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] = get(i);
+        }
+    }
+
+    /**
+     * Returns the channel in the given storage, converting (and for shorts, quantizing over the channel's
+     * value range) only when it differs.
+     */
+    public Channel as(Storage storage) {
+        if (storage == storage()) {
+            return this;
+        }
+        return switch (storage) {
+            case DOUBLE -> of(doubles());
+            case FLOAT -> {
+                final float[] values = new float[length];
+                for (int i = 0; i < length; i++) {
+                    values[i] = (float) get(i);
+                }
+                yield ofFloats(values);
+            }
+            case SHORT -> {
+                double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+                for (int i = 0; i < length; i++) {
+                    final double v = get(i);
+                    if (!Double.isNaN(v)) {
+                        min = Math.min(min, v);
+                        max = Math.max(max, v);
+                    }
+                }
+                // one code less than the full range, MISSING_SHORT marks NaN
+                final double scale = max > min ? (max - min) / 65534 : 1;
+                final short[] values = new short[length];
+                for (int i = 0; i < length; i++) {
+                    final double v = get(i);
+                    values[i] = Double.isNaN(v)
+                        ? MISSING_SHORT
+                        : (short) (Math.round((v - min) / scale) + Short.MIN_VALUE);
+                }
+                yield ofShorts(values, min <= max ? min : 0, scale);
+            }
+        };
+    }
+
+    /**
+     * Memory used by the samples of this view.
+     */
+    public long bytes() {
+        return (long) length * storage().bytesPerSample();
+    }
+
+    void checkSlice(int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("Slice [" + from + ", " + to + ") of a channel of " + length);
+        }
+    }
+
+    private static final class DoubleChannel extends Channel {
+        private final double[] values;
+
+        DoubleChannel(double[] values, int offset, int length) {
+            super(offset, length);
+            this.values = values;
+        }
+
+        @Override
+        public double get(int i) {
+            return values[offset + Objects.checkIndex(i, length)];
+        }
+
+        @Override
+        public Storage storage() {
+            return Storage.DOUBLE;
+        }
+
+        @Override
+        public Channel slice(int from, int to) {
+            checkSlice(from, to);
+            return new DoubleChannel(values, offset + from, to - from);
+        }
+
+        @Override
+        public double[] doubles() {
+            return offset == 0 && length == values.length
+                ? values
+                : Arrays.copyOfRange(values, offset, offset + length);
+        }
+
+        @Override
+        public void copyTo(double[] dst, int dstOffset) {
+            System.arraycopy(values, offset, dst, dstOffset, length);
+        }
+    }
+
+    private static final class FloatChannel extends Channel {
+        private final float[] values;
+
+        FloatChannel(float[] values, int offset, int length) {
+            super(offset, length);
+            this.values = values;
+        }
+
+        @Override
+        public double get(int i) {
+            return values[offset + Objects.checkIndex(i, length)];
+        }
+
+        @Override
+        public Storage storage() {
+            return Storage.FLOAT;
+        }
+
+        @Override
+        public Channel slice(int from, int to) {
+            checkSlice(from, to);
+            return new FloatChannel(values, offset + from, to - from);
+        }
+    }
+
+    private static final class ShortChannel extends Channel {
+        private final short[] values;
+        private final double min;
+        private final double scale;
+
+        ShortChannel(short[] values, int offset, int length, double min, double scale) {
+            super(offset, length);
+            this.values = values;
+            this.min = min;
+            this.scale = scale;
+        }
+
+        @Override
+        public double get(int i) {
+            final short value = values[offset + Objects.checkIndex(i, length)];
+            return value == MISSING_SHORT ? Double.NaN : min + scale * (value - Short.MIN_VALUE);
+        }
+
+        @Override
+        public Storage storage() {
+            return Storage.SHORT;
+        }
+
+        @Override
+        public Channel slice(int from, int to) {
+            checkSlice(from, to);
+            return new ShortChannel(values, offset + from, to - from, min, scale);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.sikrip;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.knowm.xchart.BitmapEncoder;
+import org.knowm.xchart.VectorGraphicsEncoder;
+import org.knowm.xchart.XYChart;
+
+/**
+ * Headless report generation: renders the comparison charts of many laps to PNG or SVG files, without a
+ * display.
+ * <p>
+ * Every lap is compared against a reference lap (the fastest one unless given). Comparisons are built and
+ * rendered concurrently on the common fork/join pool, each on its own chart objects, with their series
+ * {@link DecimatedChart decimated} to the image width, which bounds the width of the plot area.
+ * <p>
+ * Usage: {@code ChartReport [--out=<dir>] [--format=png|svg] [--reference=<lap>] <laps or directories...>}
+ */
+public class ChartReport {
+
+    public enum Format {
+        PNG(".png"), SVG(".svg");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+
+        Path outputDir = Path.of("report");
+        Format format = Format.PNG;
+        Path referenceFile = null;
+        final List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--out=")) {
+                outputDir = Path.of(arg.substring("--out=".length()));
+            } else if (arg.startsWith("--format=")) {
+                format = Format.valueOf(arg.substring("--format=".length()).toUpperCase(Locale.ROOT));
+            } else if (arg.startsWith("--reference=")) {
+                referenceFile = Path.of(arg.substring("--reference=".length()));
+            } else {
+                files.addAll(BatchComparison.lapFiles(Path.of(arg)));
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println(
+                "Usage: ChartReport [--out=<dir>] [--format=png|svg] [--reference=<lap>] <laps or directories...>"
+            );
+            System.exit(1);
+        }
+        Files.createDirectories(outputDir);
+
+        final long start = System.nanoTime();
+        final int charts = render(files, referenceFile, outputDir, format);
+        System.out.printf("%d charts of %d laps rendered to %s in %.2f s%n",
+            charts, files.size(), outputDir, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Compares every lap with the reference, or the fastest lap when {@code referenceFile} is {@code null},
+     * and writes the charts of each comparison to {@code outputDir}. Returns the number of files written.
+     */
+    public static int render(List<Path> files, Path referenceFile, Path outputDir, Format format) {
+        final List<LapData> laps = files.parallelStream().map(BatchComparison::load).toList();
+        final ProjectedLap reference = ProjectedLap.of(
+            referenceFile != null ? BatchComparison.load(referenceFile) : laps.get(BatchComparison.fastest(laps))
+        );
+
+        final AtomicInteger written = new AtomicInteger();
+        IntStream.range(0, laps.size()).parallel().forEach(i -> {
+            final List<XYChart> charts = ComparisonCharts.build(
+                reference, ProjectedLap.of(laps.get(i), reference.projector)
+            );
+            final String lapName = baseName(files.get(i));
+            for (XYChart chart : charts) {
+                final Path file = outputDir.resolve(lapName + "_" + slug(chart.getTitle()) + format.extension);
+                DecimatedChart.of(chart);
+                try (Instrumentation.Span span = Instrumentation.stage(Instrumentation.Stage.RENDER)) {
+                    save(chart, file, format);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot write " + file, e);
+                }
+                written.incrementAndGet();
+            }
+        });
+        return written.get();
+    }
+
+    static void save(XYChart chart, Path file, Format format) throws IOException {
+        switch (format) {
+            case PNG -> BitmapEncoder.saveBitmap(chart, file.toString(), BitmapEncoder.BitmapFormat.PNG);
+            case SVG -> VectorGraphicsEncoder.saveVectorGraphic(
+                chart, file.toString(), VectorGraphicsEncoder.VectorGraphicsFormat.SVG
+            );
+        }
+    }
+
+    private static String baseName(Path file) {
+        final String name = file.getFileName().toString();
+        final int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    /**
+     * File name friendly form of a chart title, e.g. {@code lap-speed-comparison}.
+     */
+    private static String slug(String title) {
+        return title.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+    }
+}
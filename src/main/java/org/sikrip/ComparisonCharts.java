@@ -0,0 +1,128 @@
+package org.sikrip;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.knowm.xchart.XYChart;
+import org.knowm.xchart.XYChartBuilder;
+import org.knowm.xchart.XYSeries;
+import org.knowm.xchart.style.markers.None;
+
+/**
+ * Builds the charts of a two lap comparison, for display in a window or for rendering to files.
+ * <p>
+ * Every chart is plotted against distance along lap A: lap B is mapped onto lap A by location and both
+ * are resampled onto lap A's {@link DistanceGrid}, so all series share one x axis.
+ * <p>
+ * Every call builds fresh chart objects, so comparisons can be built and rendered on several threads
+ * at once as long as each chart stays on the thread that built it.
+ */
+public final class ComparisonCharts {
+
+    /**
+     * Title of every chart's x axis: distance along lap A.
+     */
+    private static final String X_AXIS_TITLE = "Lap A Distance (m)";
+
+    private static final Set<String> STANDARD_CHANNELS = Set.of(
+        LapData.LAT, LapData.LON, LapData.SPEED, LapData.TIME
+    );
+
+    private ComparisonCharts() {
+    }
+
+    /**
+     * Matches lap B to lap A by location and returns the speed, cumulative distance and time delta charts,
+     * plus one chart per other channel logged in both laps. Both laps must share a projection.
+     */
+    public static List<XYChart> build(ProjectedLap projA, ProjectedLap projB) {
+        // === Match Lap B to closest position in Lap A ===
+        final LapMapping mapping = LapComparisonByLocation.mapLapBToLapAByLocation(
+            projA.x, projA.y, projB.x, projB.y, GridIndex.of(projB.x, projB.y)
+        );
+        return build(projA, projB, mapping);
+    }
+
+    /**
+     * Same as {@link #build(ProjectedLap, ProjectedLap)} with the mapping of lap B onto lap A already
+     * computed.
+     */
+    public static List<XYChart> build(ProjectedLap projA, ProjectedLap projB, LapMapping mapping) {
+        try (Instrumentation.Span span = Instrumentation.stage(Instrumentation.Stage.CHARTS, projA.lap.size())) {
+            return charts(projA, projB, mapping);
+        }
+    }
+
+    private static List<XYChart> charts(ProjectedLap projA, ProjectedLap projB, LapMapping mapping) {
+        // === Resample Lap A onto a distance grid, and Lap B onto the same grid through the mapping ===
+        final DistanceGrid grid = DistanceGrid.of(projA.distance);
+        final LapMapping gridOnB = grid.through(mapping);
+        final double[] distance = grid.distance;
+        final double[] timeDelta = mapping.timeDelta(projA.lap, projB.lap, LapComparisonByLocation.SAMPLE_RATE_HZ);
+
+        // === Chart 1: Speed comparison ===
+        final XYChart speedChart = new XYChartBuilder()
+            .width(800).height(400)
+            .title("Lap Speed Comparison")
+            .xAxisTitle(X_AXIS_TITLE)
+            .yAxisTitle("Speed (m/s)")
+            .build();
+
+        speedChart.getStyler().setMarkerSize(4);
+        speedChart.addSeries("Lap A", distance, grid.resample(projA.lap, LapData.SPEED)).setMarker(new None());
+        speedChart.addSeries("Lap B (matched)", distance, gridOnB.values(projB.lap, LapData.SPEED))
+            .setXYSeriesRenderStyle(XYSeries.XYSeriesRenderStyle.Line)
+            .setMarker(new None());
+
+        // === Chart 2: Cumulative Distance, Lap B's at the same place on track ===
+        final XYChart distChart = new XYChartBuilder()
+            .width(800).height(400)
+            .title("Cumulative Distance")
+            .xAxisTitle(X_AXIS_TITLE)
+            .yAxisTitle("Distance (m)")
+            .build();
+
+        distChart.getStyler().setMarkerSize(4);
+        distChart.addSeries("Lap A", distance, distance).setMarker(new None());
+        distChart.addSeries("Lap B (matched)", distance, gridOnB.apply(projB.distance))
+            .setXYSeriesRenderStyle(XYSeries.XYSeriesRenderStyle.Line)
+            .setMarker(new None());
+
+        // === Chart 3: Time delta along Lap A's distance ===
+        final XYChart deltaChart = new XYChartBuilder()
+            .width(800).height(400)
+            .title("Time Delta (Lap B - Lap A)")
+            .xAxisTitle(X_AXIS_TITLE)
+            .yAxisTitle("Delta (s)")
+            .build();
+
+        deltaChart.getStyler().setMarkerSize(4);
+        deltaChart.addSeries("Delta", distance, grid.resample(timeDelta)).setMarker(new None());
+
+        final List<XYChart> charts = new ArrayList<>(List.of(speedChart, distChart, deltaChart));
+
+        // === One more chart per other channel logged in both laps ===
+        for (String channel : projA.lap.channels().keySet()) {
+            if (STANDARD_CHANNELS.contains(channel) || !projB.lap.has(channel)) {
+                continue;
+            }
+            final double[] channelA = grid.resample(projA.lap, channel);
+            final double[] channelB = gridOnB.values(projB.lap, channel);
+            final XYChart channelChart = new XYChartBuilder()
+                .width(800).height(400)
+                .title(channel + " Comparison")
+                .xAxisTitle(X_AXIS_TITLE)
+                .yAxisTitle(channel)
+                .build();
+
+            channelChart.getStyler().setMarkerSize(4);
+            channelChart.addSeries("Lap A", distance, channelA).setMarker(new None());
+            channelChart.addSeries("Lap B (matched)", distance, channelB)
+                .setXYSeriesRenderStyle(XYSeries.XYSeriesRenderStyle.Line)
+                .setMarker(new None());
+            charts.add(channelChart);
+        }
+
+        return charts;
+    }
+}
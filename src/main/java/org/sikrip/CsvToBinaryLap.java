@@ -0,0 +1,30 @@
+package org.sikrip;
+
+import java.nio.file.Path;
+
+/**
+ * Converts a {@code lat,lon,speed} CSV file to the {@link BinaryLap} format, projecting it once.
+ * <p>
+ * Usage: {@code CsvToBinaryLap <input.csv> [output.lapb] [--float]}
+ */
+public class CsvToBinaryLap {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: CsvToBinaryLap <input.csv> [output.lapb] [--float]");
+            System.exit(1);
+        }
+        final Path input = Path.of(args[0]);
+        final boolean floats = args.length > 1 && "--float".equals(args[args.length - 1]);
+        final Path output = args.length > 1 && !args[1].startsWith("--")
+            ? Path.of(args[1])
+            : input.resolveSibling(input.getFileName().toString().replaceFirst("\\.csv$", "") + BinaryLap.EXTENSION);
+
+        final LapData data = LapResampler.uniform(LapDataLoader.load(input));
+        final ProjectedLap lap = ProjectedLap.of(
+            data, Projector.utm(LapComparisonByLocation.utmZone(data.lon()[0]), data.lat()[0] >= 0)
+        );
+        BinaryLap.write(output, lap, floats);
+        System.out.println("Wrote " + lap.x.length + " rows to " + output);
+    }
+}
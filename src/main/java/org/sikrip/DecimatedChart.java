@@ -0,0 +1,132 @@
+package org.sikrip;
+
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.knowm.xchart.XChartPanel;
+import org.knowm.xchart.XYChart;
+import org.knowm.xchart.XYSeries;
+
+/**
+ * Keeps the full resolution data of a chart's series and shows them {@link Decimation decimated} to the
+ * chart's pixel width, so rendering costs the same for a thousand samples or a million.
+ * <p>
+ * The width used is that of the whole chart or panel, not of its plot area: XChart lays out the axes and
+ * legend only while painting, so the plot bounds are not known beforehand. The plot is always narrower, so
+ * this keeps at least one min/max pair per plotted pixel column, at the cost of a few more points than
+ * strictly needed, and never loses visible detail.
+ * <p>
+ * Once attached to a panel, the decimation is recomputed lazily, only when the panel is resized or the
+ * visible x range changes: the mouse wheel zooms around the pointer and a double click shows everything
+ * again. Only the visible samples, found by binary search, are decimated. Methods must be called on the
+ * event dispatch thread once the chart is displayed.
+ */
+public final class DecimatedChart {
+
+    private static final double ZOOM_STEP = 1.25;
+
+    private final XYChart chart;
+    private final Map<String, double[][]> series = new LinkedHashMap<>();
+    private final double fullMin;
+    private final double fullMax;
+    private double visibleMin;
+    private double visibleMax;
+    private int columns;
+
+    private DecimatedChart(XYChart chart) {
+        this.chart = chart;
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (Map.Entry<String, XYSeries> entry : chart.getSeriesMap().entrySet()) {
+            final double[] x = entry.getValue().getXData();
+            series.put(entry.getKey(), new double[][]{x, entry.getValue().getYData()});
+            if (x.length > 0) {
+                min = Math.min(min, x[0]);
+                max = Math.max(max, x[x.length - 1]);
+            }
+        }
+        this.fullMin = min;
+        this.fullMax = max;
+        this.visibleMin = min;
+        this.visibleMax = max;
+    }
+
+    /**
+     * Takes over the chart's series and decimates them to the chart's width, an upper bound of its plot
+     * area's width.
+     */
+    public static DecimatedChart of(XYChart chart) {
+        final DecimatedChart decimated = new DecimatedChart(chart);
+        decimated.refresh(chart.getWidth());
+        return decimated;
+    }
+
+    /**
+     * Follows the panel's size and adds wheel zoom and double click reset to it.
+     */
+    public void attach(XChartPanel<XYChart> panel) {
+        panel.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent event) {
+                if (panel.getWidth() != columns) {
+                    refresh(panel.getWidth());
+                    panel.repaint();
+                }
+            }
+        });
+        final MouseAdapter zoom = new MouseAdapter() {
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent event) {
+                final double anchor = chart.getChartXFromCoordinate(event.getX());
+                final double factor = Math.pow(ZOOM_STEP, event.getPreciseWheelRotation());
+                zoom(anchor - (anchor - visibleMin) * factor, anchor + (visibleMax - anchor) * factor);
+                panel.repaint();
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent event) {
+                if (event.getClickCount() == 2) {
+                    zoom(fullMin, fullMax);
+                    panel.repaint();
+                }
+            }
+        };
+        panel.addMouseWheelListener(zoom);
+        panel.addMouseListener(zoom);
+    }
+
+    /**
+     * Shows the x range {@code [min, max]}, clamped to the data.
+     */
+    public void zoom(double min, double max) {
+        visibleMin = Math.max(fullMin, min);
+        visibleMax = Math.min(fullMax, max);
+        if (visibleMax <= visibleMin) {
+            visibleMin = fullMin;
+            visibleMax = fullMax;
+        }
+        final boolean full = visibleMin == fullMin && visibleMax == fullMax;
+        chart.getStyler().setXAxisMin(full ? null : visibleMin);
+        chart.getStyler().setXAxisMax(full ? null : visibleMax);
+        refresh(columns);
+    }
+
+    /**
+     * Decimates the visible part of every series to {@code columns} pixel columns.
+     */
+    void refresh(int columns) {
+        this.columns = columns;
+        for (Map.Entry<String, double[][]> entry : series.entrySet()) {
+            final double[] x = entry.getValue()[0];
+            final double[] y = entry.getValue()[1];
+            // one sample beyond each side, so lines run to the edges
+            final int from = Math.max(0, Decimation.lowerBound(x, visibleMin) - 1);
+            final int to = Math.min(x.length, Decimation.lowerBound(x, visibleMax) + 1);
+            final double[][] decimated = Decimation.minMax(x, y, from, Math.max(from + 1, to), columns);
+            chart.updateXYSeries(entry.getKey(), decimated[0], decimated[1], null);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.sikrip;
+
+import java.util.Arrays;
+
+/**
+ * Reduces a series to what a chart can show: the minimum and maximum of every pixel column.
+ * <p>
+ * A column's extremes are all a line plot of it can draw, so the decimated series looks the same as the
+ * full one, peaks included, at about two points per column whatever the number of samples. The x values
+ * must be non-decreasing.
+ */
+public final class Decimation {
+
+    private Decimation() {
+    }
+
+    /**
+     * Decimates samples {@code [from, to)} into {@code columns} columns over their x range. Returns
+     * {@code {x, y}} with at most {@code 2 * columns + 2} points, in x order, always including the first
+     * and last sample. Ranges that already fit are returned as they are.
+     */
+    public static double[][] minMax(double[] x, double[] y, int from, int to, int columns) {
+        final int n = to - from;
+        if (n <= 2 * columns + 2 || columns < 1) {
+            return new double[][]{Arrays.copyOfRange(x, from, to), Arrays.copyOfRange(y, from, to)};
+        }
+        final double[] outX = new double[2 * columns + 2];
+        final double[] outY = new double[2 * columns + 2];
+        int out = 0;
+
+        final double x0 = x[from];
+        final double scale = x[to - 1] > x0 ? columns / (x[to - 1] - x0) : 0;
+        outX[out] = x[from];
+        outY[out++] = y[from];
+
+        int column = -1;
+        int minIndex = -1;
+        int maxIndex = -1;
+        for (int i = from + 1; i < to - 1; i++) {
+            final int c = Math.min(columns - 1, (int) ((x[i] - x0) * scale));
+            if (c != column) {
+                out = emit(x, y, minIndex, maxIndex, outX, outY, out);
+                column = c;
+                minIndex = i;
+                maxIndex = i;
+            } else if (y[i] < y[minIndex]) {
+                minIndex = i;
+            } else if (y[i] > y[maxIndex]) {
+                maxIndex = i;
+            }
+        }
+        out = emit(x, y, minIndex, maxIndex, outX, outY, out);
+        outX[out] = x[to - 1];
+        outY[out++] = y[to - 1];
+
+        return new double[][]{Arrays.copyOfRange(outX, 0, out), Arrays.copyOfRange(outY, 0, out)};
+    }
+
+    /**
+     * Index of the first sample with x at or after {@code value}, in the non-decreasing {@code x}.
+     */
+    public static int lowerBound(double[] x, double value) {
+        int low = 0;
+        int high = x.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (x[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Appends a column's extremes in sample order.
+     */
+    private static int emit(
+        double[] x, double[] y, int minIndex, int maxIndex, double[] outX, double[] outY, int out
+    ) {
+        if (minIndex < 0) {
+            return out;
+        }
+        final int first = Math.min(minIndex, maxIndex);
+        final int second = Math.max(minIndex, maxIndex);
+        outX[out] = x[first];
+        outY[out++] = y[first];
+        if (second != first) {
+            outX[out] = x[second];
+            outY[out++] = y[second];
+        }
+        return out;
+    }
+}
@@ -0,0 +1,105 @@
+package org.sikrip;
+
+/**
+ * A uniform distance axis, one point every {@code step} metres along a lap, and the interpolation that
+ * brings the lap's channels onto it.
+ * <p>
+ * Laps mapped onto the same reference lap all resample onto the reference's grid, see
+ * {@link #through(LapMapping)}, so every
+ * series of a comparison shares one compact x axis, in metres along the track, whatever the laps' sample
+ * rates and lengths. Building the grid is the same merge pass {@link LapResampler} uses over timestamps,
+ * here over the cumulative distance; resampling a channel is a linear pass.
+ */
+public final class DistanceGrid {
+
+    /**
+     * System property setting the grid step, in metres.
+     */
+    public static final String STEP_PROPERTY = "lapcomparison.gridstep";
+
+    /**
+     * Grid step, in metres, unless set with {@link #STEP_PROPERTY}.
+     */
+    public static final double DEFAULT_STEP = 1.0;
+
+    /**
+     * Distance of every grid point, in metres, from {@code 0} in steps up to the lap's length.
+     */
+    public final double[] distance;
+
+    private final LapMapping positions;
+
+    private DistanceGrid(double[] distance, LapMapping positions) {
+        this.distance = distance;
+        this.positions = positions;
+    }
+
+    /**
+     * Grid with the configured step, see {@link #STEP_PROPERTY}.
+     */
+    public static DistanceGrid of(double[] cumulativeDistance) {
+        return of(cumulativeDistance, Double.parseDouble(System.getProperty(STEP_PROPERTY, "" + DEFAULT_STEP)));
+    }
+
+    /**
+     * Grid every {@code step} metres over a lap's non-decreasing cumulative distance, as computed by
+     * {@link LapComparisonByLocation#computeCumulativeDistance}.
+     */
+    public static DistanceGrid of(double[] cumulativeDistance, double step) {
+        if (!(step > 0)) {
+            throw new IllegalArgumentException("Grid step must be positive: " + step);
+        }
+        final int last = cumulativeDistance.length - 1;
+        if (last < 1) {
+            return new DistanceGrid(new double[last + 1], new LapMapping(new int[last + 1], new double[last + 1]));
+        }
+        final double start = cumulativeDistance[0];
+        final int n = (int) Math.floor((cumulativeDistance[last] - start) / step + 1e-9) + 1;
+        final double[] distance = new double[n];
+        for (int k = 0; k < n; k++) {
+            distance[k] = k * step;
+        }
+        return new DistanceGrid(distance, LapResampler.onAxis(cumulativeDistance, start, step, n));
+    }
+
+    public int size() {
+        return distance.length;
+    }
+
+    /**
+     * Values of a channel of the lap the grid was built on, at every grid point.
+     */
+    public double[] resample(double[] values) {
+        return positions.apply(values);
+    }
+
+    /**
+     * Values of a channel of the lap the grid was built on at every grid point, see
+     * {@link LapMapping#values(LapData, String)}: discrete channels are not interpolated.
+     */
+    public double[] resample(LapData lap, String name) {
+        return positions.values(lap, name);
+    }
+
+    /**
+     * Positions of the grid points on lap B, given the mapping of the grid's lap onto lap B. Applying the
+     * result to lap B's channels brings them onto the grid in one interpolation, instead of mapping them
+     * onto the grid's lap and then resampling them.
+     */
+    public LapMapping through(LapMapping mapping) {
+        final int n = distance.length;
+        final int[] index = new int[n];
+        final double[] fraction = new double[n];
+        final int last = mapping.index.length - 1;
+        for (int k = 0; k < n; k++) {
+            final int i = positions.index[k];
+            final double p0 = mapping.index[i] + mapping.fraction[i];
+            final double p = i < last
+                ? p0 + positions.fraction[k] * (mapping.index[i + 1] + mapping.fraction[i + 1] - p0)
+                : p0;
+            index[k] = (int) p;
+            fraction[k] = p - index[k];
+        }
+        return new LapMapping(index, fraction);
+    }
+}
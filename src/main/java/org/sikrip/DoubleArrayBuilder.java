@@ -0,0 +1,53 @@
+package org.sikrip;
+
+import java.util.Arrays;
+
+/**
+ * Growable primitive {@code double} buffer, used instead of {@code List<Double>} to avoid boxing.
+ */
+final class DoubleArrayBuilder {
+
+    private double[] values;
+    private int size;
+
+    DoubleArrayBuilder() {
+        this(1024);
+    }
+
+    DoubleArrayBuilder(int initialCapacity) {
+        this.values = new double[Math.max(16, initialCapacity)];
+    }
+
+    void add(double value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length + (values.length >> 1));
+        }
+        values[size++] = value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    double get(int i) {
+        return values[i];
+    }
+
+    /**
+     * Removes the first {@code count} values and returns them in an array of exactly that length. The buffer
+     * keeps its capacity for the values after them, so taking a lap at a time allocates only lap-sized arrays.
+     */
+    double[] removeFirst(int count) {
+        final double[] removed = Arrays.copyOf(values, count);
+        System.arraycopy(values, count, values, 0, size - count);
+        size -= count;
+        return removed;
+    }
+
+    /**
+     * Returns the values added so far, trimmed to {@link #size()}.
+     */
+    double[] toArray() {
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,142 @@
+package org.sikrip;
+
+/**
+ * Uniform grid over a lap's projected points, answering exact nearest neighbour queries.
+ * <p>
+ * Points are bucketed into square cells stored in flat arrays (cell offsets plus point indices),
+ * and a query scans rings of cells around the query point until no closer point can exist.
+ * With cells sized to hold a couple of points on average a lookup touches only a few cells.
+ */
+public final class GridIndex {
+
+    private static final double MIN_CELL_SIZE = 0.5;
+
+    private final double[] x, y;
+    private final double minX, minY, cellSize;
+    private final int cols, rows;
+
+    /**
+     * Start of each cell's run in {@link #points}; cell {@code c} holds {@code points[cellStart[c]..cellStart[c + 1])}.
+     */
+    private final int[] cellStart;
+    private final int[] points;
+
+    private GridIndex(double[] x, double[] y, double minX, double minY, double cellSize, int cols, int rows) {
+        this.x = x;
+        this.y = y;
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = cellSize;
+        this.cols = cols;
+        this.rows = rows;
+        this.cellStart = new int[cols * rows + 1];
+        this.points = new int[x.length];
+
+        // counting sort of the points by cell
+        for (int i = 0; i < x.length; i++) {
+            cellStart[cellOf(x[i], y[i]) + 1]++;
+        }
+        for (int c = 0; c < cols * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        final int[] fill = new int[cols * rows];
+        for (int i = 0; i < x.length; i++) {
+            final int c = cellOf(x[i], y[i]);
+            points[cellStart[c] + fill[c]++] = i;
+        }
+    }
+
+    /**
+     * Indexes the given points. The arrays are referenced, not copied, and must not change afterwards.
+     */
+    public static GridIndex of(double[] x, double[] y) {
+        try (Instrumentation.Span span = Instrumentation.stage(Instrumentation.Stage.INDEX, x.length)) {
+            return build(x, y);
+        }
+    }
+
+    private static GridIndex build(double[] x, double[] y) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < x.length; i++) {
+            minX = Math.min(minX, x[i]);
+            maxX = Math.max(maxX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        if (x.length == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        final double width = maxX - minX;
+        final double height = maxY - minY;
+
+        // about two points per cell if they were spread over the whole bounding box
+        final double cellSize = Math.max(MIN_CELL_SIZE, Math.sqrt(2 * width * height / Math.max(1, x.length)));
+        final int cols = (int) (width / cellSize) + 1;
+        final int rows = (int) (height / cellSize) + 1;
+        return new GridIndex(x, y, minX, minY, cellSize, cols, rows);
+    }
+
+    /**
+     * Returns the index of the point closest to ({@code qx}, {@code qy}), or -1 when the index is empty.
+     */
+    public int nearest(double qx, double qy) {
+        final int cx = clamp((int) Math.floor((qx - minX) / cellSize), cols);
+        final int cy = clamp((int) Math.floor((qy - minY) / cellSize), rows);
+        final int maxRing = Math.max(cols, rows);
+
+        int best = -1;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            final int left = cx - ring, right = cx + ring, bottom = cy - ring, top = cy + ring;
+            for (int gy = Math.max(0, bottom); gy <= Math.min(rows - 1, top); gy++) {
+                if (gy == bottom || gy == top) {
+                    for (int gx = Math.max(0, left); gx <= Math.min(cols - 1, right); gx++) {
+                        best = scanCell(gy * cols + gx, qx, qy, best);
+                    }
+                } else {
+                    if (left >= 0) {
+                        best = scanCell(gy * cols + left, qx, qy, best);
+                    }
+                    if (right < cols) {
+                        best = scanCell(gy * cols + right, qx, qy, best);
+                    }
+                }
+            }
+            // every point beyond this ring is at least ring * cellSize away
+            final double reach = ring * cellSize;
+            if (best >= 0 && distance2(best, qx, qy) <= reach * reach) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    private int scanCell(int cell, double qx, double qy, int best) {
+        double bestDist = best < 0 ? Double.MAX_VALUE : distance2(best, qx, qy);
+        for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+            final int p = points[k];
+            final double dist = distance2(p, qx, qy);
+            if (dist < bestDist) {
+                bestDist = dist;
+                best = p;
+            }
+        }
+        return best;
+    }
+
+    private double distance2(int p, double qx, double qy) {
+        final double dx = qx - x[p];
+        final double dy = qy - y[p];
+        return dx * dx + dy * dy;
+    }
+
+    private int cellOf(double px, double py) {
+        final int cx = clamp((int) ((px - minX) / cellSize), cols);
+        final int cy = clamp((int) ((py - minY) / cellSize), rows);
+        return cy * cols + cx;
+    }
+
+    private static int clamp(int v, int size) {
+        return v < 0 ? 0 : Math.min(v, size - 1);
+    }
+}
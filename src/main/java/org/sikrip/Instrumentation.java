@@ -0,0 +1,201 @@
+package org.sikrip;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Per-stage timing of the comparison pipeline, enabled with {@code -Dlapcomparison.instrument=true}.
+ * <p>
+ * Every stage run records its wall time, CPU time and bytes allocated by the calling thread (through
+ * {@link ThreadMXBean}) and the number of points it processed. Each run is emitted as a JFR event
+ * ({@code org.sikrip.PipelineStage}) and added to per-stage totals printed at exit. Work a stage hands to
+ * other threads, such as parallel projection, shows in its wall time but not in its CPU time or allocations.
+ * <p>
+ * When disabled, {@link #stage(Stage)} returns a shared no-op span, so an instrumented stage costs one
+ * branch on a constant.
+ */
+public final class Instrumentation {
+
+    public static final String PROPERTY = "lapcomparison.instrument";
+
+    static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+    /**
+     * Pipeline stages. {@code CHARTS} builds the chart series of a comparison, {@code RENDER} only encodes
+     * finished charts to files.
+     */
+    public enum Stage {
+        LOAD, PROJECT, DISTANCE, INDEX, MATCH, CHARTS, RENDER
+    }
+
+    /**
+     * A running stage; closing it records the stage.
+     */
+    public interface Span extends AutoCloseable {
+
+        /**
+         * Sets the number of points the stage processed, when not known at its start.
+         */
+        void points(long points);
+
+        @Override
+        void close();
+    }
+
+    private static final Span NOOP = new Span() {
+        @Override
+        public void points(long points) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS =
+        THREADS instanceof com.sun.management.ThreadMXBean allocations
+            && allocations.isThreadAllocatedMemorySupported() ? allocations : null;
+    private static final Map<Stage, Totals> TOTALS = new EnumMap<>(Stage.class);
+
+    static {
+        if (ENABLED) {
+            for (Stage stage : Stage.values()) {
+                TOTALS.put(stage, new Totals());
+            }
+            if (THREADS.isThreadCpuTimeSupported()) {
+                THREADS.setThreadCpuTimeEnabled(true);
+            }
+            if (ALLOCATIONS != null) {
+                ALLOCATIONS.setThreadAllocatedMemoryEnabled(true);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(summary()), "instrumentation"));
+        }
+    }
+
+    private Instrumentation() {
+    }
+
+    public static Span stage(Stage stage) {
+        return ENABLED ? new ActiveSpan(stage, 0) : NOOP;
+    }
+
+    public static Span stage(Stage stage, long points) {
+        return ENABLED ? new ActiveSpan(stage, points) : NOOP;
+    }
+
+    /**
+     * Table of the totals recorded so far, one row per stage that ran.
+     */
+    public static String summary() {
+        final StringBuilder out = new StringBuilder(String.format(
+            "%n%-9s %6s %11s %11s %12s %10s %12s%n",
+            "Stage", "Runs", "Wall (ms)", "CPU (ms)", "Points", "Mpts/s", "Alloc (MB)"
+        ));
+        for (Map.Entry<Stage, Totals> entry : TOTALS.entrySet()) {
+            final Totals totals = entry.getValue();
+            final long runs = totals.runs.sum();
+            if (runs == 0) {
+                continue;
+            }
+            final long wall = totals.wallNanos.sum();
+            final long points = totals.points.sum();
+            out.append(String.format(
+                "%-9s %6d %11.1f %11.1f %12d %10.2f %12.1f%n",
+                entry.getKey(), runs, wall / 1e6, totals.cpuNanos.sum() / 1e6, points,
+                wall > 0 ? points * 1e3 / wall : 0, totals.allocatedBytes.sum() / 1e6
+            ));
+        }
+        return out.toString();
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long allocatedBytes() {
+        return ALLOCATIONS != null ? ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().threadId()) : 0;
+    }
+
+    private static final class Totals {
+        final LongAdder runs = new LongAdder();
+        final LongAdder wallNanos = new LongAdder();
+        final LongAdder cpuNanos = new LongAdder();
+        final LongAdder points = new LongAdder();
+        final LongAdder allocatedBytes = new LongAdder();
+    }
+
+    private static final class ActiveSpan implements Span {
+        private final Stage stage;
+        private final StageEvent event = new StageEvent();
+        private final long wallStart;
+        private final long cpuStart;
+        private final long allocatedStart;
+        private long points;
+
+        ActiveSpan(Stage stage, long points) {
+            this.stage = stage;
+            this.points = points;
+            event.begin();
+            this.allocatedStart = allocatedBytes();
+            this.cpuStart = cpuTime();
+            this.wallStart = System.nanoTime();
+        }
+
+        @Override
+        public void points(long points) {
+            this.points = points;
+        }
+
+        @Override
+        public void close() {
+            final long wall = System.nanoTime() - wallStart;
+            final long cpu = cpuTime() - cpuStart;
+            final long allocated = allocatedBytes() - allocatedStart;
+            event.end();
+
+            final Totals totals = TOTALS.get(stage);
+            totals.runs.increment();
+            totals.wallNanos.add(wall);
+            totals.cpuNanos.add(cpu);
+            totals.points.add(points);
+            totals.allocatedBytes.add(allocated);
+
+            if (event.shouldCommit()) {
+                event.stage = stage.name();
+                event.points = points;
+                event.cpuTime = cpu;
+                event.allocated = allocated;
+                event.commit();
+            }
+        }
+    }
+
+    @Name("org.sikrip.PipelineStage")
+    @Label("Pipeline Stage")
+    @Category("Lap Comparison")
+    static final class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+
+        @Label("Points")
+        long points;
+
+        @Label("CPU Time")
+        @Timespan
+        long cpuTime;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+    }
+}
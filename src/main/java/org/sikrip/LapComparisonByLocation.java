@@ -1,19 +1,10 @@
 package org.sikrip;
 
-import com.opencsv.CSVReader;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
+import java.nio.file.Path;
 import java.util.List;
+import javax.swing.SwingUtilities;
 import org.knowm.xchart.SwingWrapper;
 import org.knowm.xchart.XYChart;
-import org.knowm.xchart.XYChartBuilder;
-import org.knowm.xchart.XYSeries;
-import org.knowm.xchart.style.markers.None;
-import org.locationtech.proj4j.CRSFactory;
-import org.locationtech.proj4j.CoordinateReferenceSystem;
-import org.locationtech.proj4j.CoordinateTransform;
-import org.locationtech.proj4j.CoordinateTransformFactory;
-import org.locationtech.proj4j.ProjCoordinate;
 
 /**
  * This class compares two laps based on their geographic locations and speeds.
@@ -23,170 +14,93 @@ import org.locationtech.proj4j.ProjCoordinate;
  */
 public class LapComparisonByLocation {
 
-    public static void main(String[] args) throws Exception {
-        // === Load lap data from CSV ===
-        final LapData lapA = readLatLonSpeedCsvFromResource("1m34.344s.csv");
-        final LapData lapB = readLatLonSpeedCsvFromResource("1m53.819s.csv");
-
-        // === Convert to UTM ===
-        final double[][] xyA = latLonToUTM(lapA.lat, lapA.lon);
-        final double[][] xyB = latLonToUTM(lapB.lat, lapB.lon);
-
-        // === Match Lap B to closest point in Lap A ===
-        final double[] speedBClosest = mapLapBToLapAByLocation(
-            xyA[0], xyA[1], xyB[0], xyB[1], lapB.speed
-        );
-
-        // === Index axis ===
-        final int n = lapA.lat.length;
-        final double[] indexA = new double[n];
-        for (int i = 0; i < n; i++) {
-            indexA[i] = i;
-        }
-
-        // === Compute cumulative distance ===
-        final double[] distanceA = computeCumulativeDistance(xyA[0], xyA[1]);
-        final double[] distanceB = computeCumulativeDistance(xyB[0], xyB[1]);
-
-        // === Chart 1: Speed comparison ===
-        final XYChart speedChart = new XYChartBuilder()
-            .width(800).height(400)
-            .title("Lap Speed Comparison")
-            .xAxisTitle("Sample Index")
-            .yAxisTitle("Speed (m/s)")
-            .build();
-
-        speedChart.getStyler().setMarkerSize(4);
-        speedChart.addSeries("Lap A", indexA, lapA.speed).setMarker(new None());
-        speedChart.addSeries("Lap B (closest)", indexA, speedBClosest)
-            .setXYSeriesRenderStyle(XYSeries.XYSeriesRenderStyle.Line)
-            .setMarker(new None());
-
-        // === Chart 2: Cumulative Distance ===
-        final XYChart distChart = new XYChartBuilder()
-            .width(800).height(400)
-            .title("Cumulative Distance")
-            .xAxisTitle("Sample Index")
-            .yAxisTitle("Distance (m)")
-            .build();
-
-        distChart.getStyler().setMarkerSize(4);
-        distChart.addSeries("Lap A", indexA, distanceA).setMarker(new None());
-        distChart.addSeries("Lap B", new double[distanceB.length], distanceB)  // indexB
-            .setXYSeriesRenderStyle(XYSeries.XYSeriesRenderStyle.Line)
-            .setMarker(new None());
-
-        for (int i = 0; i < distanceB.length; i++) {
-            distChart.getSeriesMap().get("Lap B").getXData()[i] = i;
-        }
+    /**
+     * Logging rate of laps without timestamps, used to turn sample positions into time.
+     */
+    static final double SAMPLE_RATE_HZ = 10.0;
 
-        // === Display both charts in tabs ===
-        new SwingWrapper<>(List.of(speedChart, distChart)).displayChartMatrix();
+    public static void main(String[] args) throws Exception {
+        // === Load lap data (files given as arguments or the bundled samples), B in A's projection ===
+        final ProjectedLap projA = args.length >= 2
+            ? loadLap(Path.of(args[0]), null)
+            : loadLap("1m34.344s.csv", null);
+        final ProjectedLap projB = args.length >= 2
+            ? loadLap(Path.of(args[1]), projA.projector)
+            : loadLap("1m53.819s.csv", projA.projector);
+
+        // === Match Lap B to Lap A by location and build the charts ===
+        final List<XYChart> charts = ComparisonCharts.build(projA, projB);
+
+        // === Decimate the series to the chart width, then display all charts with wheel zoom ===
+        final List<DecimatedChart> decimated = charts.stream().map(DecimatedChart::of).toList();
+        final SwingWrapper<XYChart> wrapper = new SwingWrapper<>(charts);
+        wrapper.displayChartMatrix();
+        SwingUtilities.invokeLater(() -> {
+            for (int i = 0; i < decimated.size(); i++) {
+                decimated.get(i).attach(wrapper.getXChartPanel(i));
+            }
+        });
     }
 
 
     /**
-     * Reads latitude, longitude, and speed data from a CSV file just for this sample/demo.
+     * Loads and projects a lap file with the given projector, or the configured one when {@code null}.
      */
-    private static LapData readLatLonSpeedCsvFromResource(String resourceName) throws Exception {
-        try (CSVReader reader = new CSVReader(
-            new InputStreamReader(
-                LapComparisonByLocation.class.getClassLoader().getResourceAsStream(resourceName)
-            )
-        )) {
-            final List<Double> latList = new ArrayList<>();
-            final List<Double> lonList = new ArrayList<>();
-            final List<Double> speedList = new ArrayList<>();
-
-            reader.readNext(); // skip header
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                latList.add(Double.parseDouble(line[0]));
-                lonList.add(Double.parseDouble(line[1]));
-                speedList.add(Double.parseDouble(line[2]));
-            }
+    private static ProjectedLap loadLap(Path path, Projector projector) throws Exception {
+        return LapDataLoader.loadProjected(path, projector);
+    }
 
-            return new LapData(
-                latList.stream().mapToDouble(d -> d).toArray(),
-                lonList.stream().mapToDouble(d -> d).toArray(),
-                speedList.stream().mapToDouble(d -> d).toArray()
-            );
-        }
+    private static ProjectedLap loadLap(String resourceName, Projector projector) throws Exception {
+        return LapDataLoader.project(LapDataLoader.loadResource(resourceName), projector);
     }
 
     /**
      * Converts latitude and longitude arrays to UTM coordinates (x/y).
      */
-    private static double[][] latLonToUTM(double[] lat, double[] lon) {
-        final CRSFactory crsFactory = new CRSFactory();
-        final CoordinateReferenceSystem crsWGS84 = crsFactory.createFromName("epsg:4326");
-
-        final int utmZone = (int) Math.floor((lon[0] + 180) / 6) + 1;
-        final boolean isNorth = lat[0] >= 0;
-        final String utmCode = "epsg:" + (isNorth ? "326" : "327") + String.format("%02d", utmZone);
-        final CoordinateReferenceSystem crsUTM = crsFactory.createFromName(utmCode);
-
-        final CoordinateTransformFactory ctFactory = new CoordinateTransformFactory();
-        final CoordinateTransform transform = ctFactory.createTransform(crsWGS84, crsUTM);
-
+    public static double[][] latLonToUTM(double[] lat, double[] lon) {
         final double[] x = new double[lat.length];
         final double[] y = new double[lat.length];
+        latLonToUTM(lat, lon, x, y);
+        return new double[][]{x, y};
+    }
 
-        for (int i = 0; i < lat.length; i++) {
-            final ProjCoordinate src = new ProjCoordinate(lon[i], lat[i]);
-            final ProjCoordinate dst = new ProjCoordinate();
-            transform.transform(src, dst);
-            x[i] = dst.x;
-            y[i] = dst.y;
-        }
+    /**
+     * Bulk variant of {@link #latLonToUTM(double[], double[])} writing into caller supplied arrays.
+     * The projection implementation is chosen by {@link Projector#utm(int, boolean)}; long inputs are
+     * projected on all cores by {@link ParallelProjection}.
+     */
+    public static void latLonToUTM(double[] lat, double[] lon, double[] x, double[] y) {
+        ParallelProjection.project(Projector.utm(utmZone(lon[0]), lat[0] >= 0), lat, lon, x, y);
+    }
 
-        return new double[][]{x, y};
+    /**
+     * Returns the UTM zone number for a longitude.
+     */
+    static int utmZone(double lon) {
+        return (int) Math.floor((lon + 180) / 6) + 1;
     }
 
     /**
-     * Maps the speed of Lap B to the closest point in Lap A based on their geographic locations.
-     * The same can be done for other metrics like acceleration or etc.
+     * Maps Lap B to the closest positions in Lap A based on their geographic locations.
+     * The mapping is computed once and then applied to speed and any other metric like acceleration or etc.
+     * <p>
+     * Each Lap A point is projected onto the closest segment of Lap B, so values are interpolated between
+     * the segment's samples, see {@link LapMapping#onSegments}. {@code indexB} is an optional spatial index
+     * over Lap B, used to resync when the windowed match is too far away.
      */
-    private static double[] mapLapBToLapAByLocation(
+    static LapMapping mapLapBToLapAByLocation(
         double[] xA, double[] yA,
         double[] xB, double[] yB,
-        double[] speedB
+        GridIndex indexB
     ) {
-        final int SEARCH_WINDOW = 50; // tune as needed
-        final double[] result = new double[xA.length];
-
-        int lastMatchedIndex = 0;
-
-        for (int i = 0; i < xA.length; i++) {
-            double x = xA[i];
-            double y = yA[i];
-
-            double minDist = Double.MAX_VALUE;
-            int bestBIdx = -1;
-
-            int left = Math.max(0, lastMatchedIndex - SEARCH_WINDOW);
-            int right = Math.min(xB.length, lastMatchedIndex + SEARCH_WINDOW);
-
-            for (int j = left; j < right; j++) {
-                double dx = x - xB[j];
-                double dy = y - yB[j];
-                double dist = dx * dx + dy * dy;
-
-                if (dist < minDist) {
-                    minDist = dist;
-                    bestBIdx = j;
-                    lastMatchedIndex = j;
-                }
-            }
-
-            result[i] = speedB[bestBIdx];
-        }
-
-        return result;
+        return LapMapping.onSegments(xA, yA, xB, yB, indexB);
     }
 
 
-    private static double[] computeCumulativeDistance(double[] x, double[] y) {
+    /**
+     * Returns the distance travelled up to every point of a projected track, in metres.
+     */
+    public static double[] computeCumulativeDistance(double[] x, double[] y) {
         int n = x.length;
         double[] dist = new double[n];
         dist[0] = 0.0;
@@ -198,17 +112,4 @@ public class LapComparisonByLocation {
         }
         return dist;
     }
-
-
-    /**
-     * Data structure to hold latitude, longitude, and speed arrays for a lap.
-     */
-    private static class LapData {
-        public double[] lat, lon, speed;
-        public LapData(double[] lat, double[] lon, double[] speed) {
-            this.lat = lat;
-            this.lon = lon;
-            this.speed = speed;
-        }
-    }
 }
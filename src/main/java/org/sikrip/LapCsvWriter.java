@@ -0,0 +1,33 @@
+package org.sikrip;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes a {@link LapData} as CSV: a header of the channel names, then one row per sample, in the layout
+ * {@link LatLonSpeedCsvParser} reads back.
+ */
+public final class LapCsvWriter {
+
+    private LapCsvWriter() {
+    }
+
+    public static void write(LapData lap, Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            writer.write(String.join(",", lap.channels().keySet()));
+            writer.write('\n');
+            final Channel[] channels = lap.channels().values().toArray(new Channel[0]);
+            for (int i = 0; i < lap.size(); i++) {
+                for (int c = 0; c < channels.length; c++) {
+                    if (c > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(Double.toString(channels[c].get(i)));
+                }
+                writer.write('\n');
+            }
+        }
+    }
+}
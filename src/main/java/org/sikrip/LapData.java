@@ -0,0 +1,166 @@
+package org.sikrip;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Columnar container for a lap: named {@link Channel}s of equal length, in file order.
+ * <p>
+ * Every lap has {@link #LAT}, {@link #LON} and {@link #SPEED} channels; {@link #TIME} holds the sample
+ * timestamps in seconds and is absent for fixed rate logs. Any other logged channel (RPM, throttle, ...)
+ * is kept under its own name. Laps are immutable as long as the arrays returned by the channel accessors
+ * are not written to, and slicing does not copy samples.
+ */
+public final class LapData {
+
+    public static final String LAT = "lat";
+    public static final String LON = "lon";
+    public static final String SPEED = "speed";
+    public static final String TIME = "time";
+
+    /**
+     * System property listing further discrete channels, comma separated, see {@link #isDiscrete(String)}.
+     */
+    public static final String DISCRETE_PROPERTY = "lapcomparison.discrete";
+
+    /**
+     * Channels known to hold discrete states, in lower case.
+     */
+    static final Set<String> DISCRETE_CHANNELS = Set.of("gear", "lap");
+
+    private final Map<String, Channel> channels;
+    private final int size;
+
+    public LapData(Map<String, Channel> channels) {
+        for (String required : new String[]{LAT, LON, SPEED}) {
+            if (!channels.containsKey(required)) {
+                throw new IllegalArgumentException("Lap has no " + required + " channel");
+            }
+        }
+        this.size = channels.get(LAT).size();
+        for (Map.Entry<String, Channel> channel : channels.entrySet()) {
+            if (channel.getValue().size() != size) {
+                throw new IllegalArgumentException(
+                    "Channel " + channel.getKey() + " has " + channel.getValue().size() + " samples, expected " + size
+                );
+            }
+        }
+        this.channels = Collections.unmodifiableMap(new LinkedHashMap<>(channels));
+    }
+
+    public LapData(double[] lat, double[] lon, double[] speed) {
+        this(lat, lon, speed, null);
+    }
+
+    public LapData(double[] lat, double[] lon, double[] speed, double[] time) {
+        this(coreChannels(lat, lon, speed, time));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean has(String name) {
+        return channels.containsKey(name);
+    }
+
+    public Channel channel(String name) {
+        final Channel channel = channels.get(name);
+        if (channel == null) {
+            throw new IllegalArgumentException("Lap has no " + name + " channel");
+        }
+        return channel;
+    }
+
+    /**
+     * Whether the named channel holds discrete states, like a gear or lap counter, so resampling takes the
+     * nearest sample instead of interpolating. These are the {@link #DISCRETE_CHANNELS} plus any listed in
+     * {@link #DISCRETE_PROPERTY}, ignoring case. Channels that merely log whole numbers, such as RPM or
+     * throttle percent, stay continuous.
+     */
+    public static boolean isDiscrete(String name) {
+        final String key = name.toLowerCase(Locale.ROOT);
+        if (DISCRETE_CHANNELS.contains(key)) {
+            return true;
+        }
+        for (String declared : System.getProperty(DISCRETE_PROPERTY, "").split(",")) {
+            if (declared.trim().toLowerCase(Locale.ROOT).equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * All channels by name, in file order.
+     */
+    public Map<String, Channel> channels() {
+        return channels;
+    }
+
+    /**
+     * Latitudes as doubles, see {@link Channel#doubles()}: the result may be the backing array and must
+     * not be modified. The same holds for {@link #lon()}, {@link #speed()} and {@link #time()}.
+     */
+    public double[] lat() {
+        return channel(LAT).doubles();
+    }
+
+    public double[] lon() {
+        return channel(LON).doubles();
+    }
+
+    public double[] speed() {
+        return channel(SPEED).doubles();
+    }
+
+    /**
+     * Timestamps in seconds, or {@code null} for fixed rate logs. Must not be modified, see {@link #lat()}.
+     */
+    public double[] time() {
+        return has(TIME) ? channel(TIME).doubles() : null;
+    }
+
+    /**
+     * Returns samples {@code [from, to)} of every channel, sharing the backing arrays.
+     */
+    public LapData slice(int from, int to) {
+        final Map<String, Channel> sliced = new LinkedHashMap<>();
+        channels.forEach((name, channel) -> sliced.put(name, channel.slice(from, to)));
+        return new LapData(sliced);
+    }
+
+    /**
+     * Returns a lap with the given channel added or replaced.
+     */
+    public LapData with(String name, Channel channel) {
+        final Map<String, Channel> updated = new LinkedHashMap<>(channels);
+        updated.put(name, channel);
+        return new LapData(updated);
+    }
+
+    /**
+     * Memory used by the samples of all channels.
+     */
+    public long bytes() {
+        long bytes = 0;
+        for (Channel channel : channels.values()) {
+            bytes += channel.bytes();
+        }
+        return bytes;
+    }
+
+    private static Map<String, Channel> coreChannels(double[] lat, double[] lon, double[] speed, double[] time) {
+        final Map<String, Channel> channels = new LinkedHashMap<>();
+        channels.put(LAT, Channel.of(lat));
+        channels.put(LON, Channel.of(lon));
+        channels.put(SPEED, Channel.of(speed));
+        if (time != null) {
+            channels.put(TIME, Channel.of(time));
+        }
+        return channels;
+    }
+}
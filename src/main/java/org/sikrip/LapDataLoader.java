@@ -0,0 +1,171 @@
+package org.sikrip;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Loads {@link LapData} from filesystem paths.
+ * <p>
+ * Files are memory mapped and the mapped bytes are fed directly to the {@link LatLonSpeedCsvParser},
+ * so nothing is copied through an {@code InputStreamReader} and repeated loads of the same session
+ * file are served from the OS page cache.
+ */
+public final class LapDataLoader {
+
+    /**
+     * System property selecting how the channels of CSV laps other than lat, lon and time are stored by
+     * {@link #loadProjected}: {@code double} (default), {@code float} or {@code short}.
+     */
+    public static final String STORAGE_PROPERTY = "lapcomparison.storage";
+
+    /**
+     * Size of each mapped window; files larger than this are mapped piece by piece.
+     */
+    private static final long MAP_WINDOW = 1L << 30;
+
+    /**
+     * Rough bytes per CSV row, used to pre-size the parser buffers.
+     */
+    private static final int BYTES_PER_ROW_ESTIMATE = 40;
+
+    /**
+     * Initial buffer size when streaming a session lap by lap.
+     */
+    private static final int LAP_ROWS_ESTIMATE = 1 << 14;
+
+    private LapDataLoader() {
+    }
+
+    /**
+     * Loads a lap file of either format and projects it with the given projector, or with the configured
+     * one for the lap's first point when {@code null}. Binary ({@code .lapb}) laps carry a UTM projection and
+     * are only re-projected when it differs, e.g. with {@code -Dlapcomparison.projector=enu}; CSV laps are
+     * resampled to a uniform rate first, see {@link #project}.
+     */
+    public static ProjectedLap loadProjected(Path path, Projector projector) throws IOException {
+        if (path.toString().endsWith(BinaryLap.EXTENSION)) {
+            final ProjectedLap lap;
+            try (Instrumentation.Span span = Instrumentation.stage(Instrumentation.Stage.LOAD)) {
+                lap = BinaryLap.open(path).toProjectedLap();
+                span.points(lap.x.length);
+            }
+            if (projector != null) {
+                return lap.projectedWith(projector);
+            }
+            return lap.x.length == 0 ? lap : lap.projectedWith(Projector.forTrack(lap.lap.lat()[0], lap.lap.lon()[0]));
+        }
+        return project(load(path, configuredStorage()), projector);
+    }
+
+    /**
+     * Loads a lap file of either format without projecting it, for projecting several laps straight into
+     * one frame: CSV laps are brought to a uniform rate, binary laps leave their stored projection out.
+     */
+    public static LapData loadUnprojected(Path path) throws IOException {
+        if (path.toString().endsWith(BinaryLap.EXTENSION)) {
+            try (Instrumentation.Span span = Instrumentation.stage(Instrumentation.Stage.LOAD)) {
+                final LapData lap = BinaryLap.open(path).toLapData();
+                span.points(lap.size());
+                return lap;
+            }
+        }
+        return LapResampler.uniform(load(path, configuredStorage()));
+    }
+
+    private static Channel.Storage configuredStorage() {
+        return Channel.Storage.valueOf(System.getProperty(STORAGE_PROPERTY, "double").toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Projects a lap after bringing timestamped laps onto a uniform rate.
+     */
+    public static ProjectedLap project(LapData lap, Projector projector) {
+        final LapData uniform = LapResampler.uniform(lap);
+        return projector == null ? ProjectedLap.of(uniform) : ProjectedLap.of(uniform, projector);
+    }
+
+    /**
+     * Loads a lap CSV bundled on the classpath, such as the sample laps.
+     */
+    public static LapData loadResource(String name) throws IOException {
+        try (InputStream in = LapDataLoader.class.getClassLoader().getResourceAsStream(name)) {
+            if (in == null) {
+                throw new FileNotFoundException("No bundled lap " + name);
+            }
+            try (Instrumentation.Span span = Instrumentation.stage(Instrumentation.Stage.LOAD)) {
+                final LapData lap = LatLonSpeedCsvParser.parse(in);
+                span.points(lap.size());
+                return lap;
+            }
+        }
+    }
+
+    /**
+     * Loads a lap CSV file, or a bundled sample lap when no such file exists.
+     */
+    public static LapData loadFileOrResource(String name) throws IOException {
+        final Path path = Path.of(name);
+        return Files.exists(path) ? load(path) : loadResource(name);
+    }
+
+    /**
+     * Loads a lap CSV file, keeping every channel as doubles.
+     */
+    public static LapData load(Path path) throws IOException {
+        return load(path, Channel.Storage.DOUBLE);
+    }
+
+    /**
+     * Loads a lap CSV file, see {@link LatLonSpeedCsvParser} for the storage of the channels.
+     */
+    public static LapData load(Path path, Channel.Storage storage) throws IOException {
+        final long size = Files.size(path);
+        final LatLonSpeedCsvParser parser = new LatLonSpeedCsvParser(
+            (int) Math.min(Integer.MAX_VALUE - 8, size / BYTES_PER_ROW_ESTIMATE + 1), storage
+        );
+        try (Instrumentation.Span span = Instrumentation.stage(Instrumentation.Stage.LOAD)) {
+            feed(path, parser);
+            final LapData lap = parser.finish();
+            span.points(lap.size());
+            return lap;
+        }
+    }
+
+    /**
+     * Streams a session CSV file through the segmenter in one pass, handing every complete lap to
+     * {@code laps} as soon as it is parsed. Only the lap in progress is kept in memory, and the samples
+     * before the first and after the last line crossing are dropped.
+     */
+    public static void loadLaps(Path path, LapSegmenter segmenter, Consumer<LapData> laps) throws IOException {
+        final LatLonSpeedCsvParser parser = new LatLonSpeedCsvParser(LAP_ROWS_ESTIMATE, Channel.Storage.DOUBLE);
+        segmenter.attach(parser, laps);
+        feed(path, parser);
+        parser.finish();
+    }
+
+    /**
+     * Feeds the memory mapped file to the parser.
+     */
+    private static void feed(Path path, LatLonSpeedCsvParser parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            for (long position = 0; position < size; position += MAP_WINDOW) {
+                final MappedByteBuffer mapped = channel.map(
+                    FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, size - position)
+                );
+                final int limit = mapped.limit();
+                for (int i = 0; i < limit; i++) {
+                    parser.accept(mapped.get(i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package org.sikrip;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic generator of synthetic laps for scale testing, driven around the outline of a real lap.
+ * <p>
+ * The generated car follows the outline at the outline's own pace, looping for as long as asked, with
+ * optional disturbances:
+ * <ul>
+ *     <li>speed variation: a smooth pace change of up to the given fraction,</li>
+ *     <li>racing line offset: a smooth sideways offset of up to the given metres,</li>
+ *     <li>GPS noise: independent Gaussian error per sample, in metres,</li>
+ *     <li>dropouts: gaps of the given length with no samples, at a given rate per minute.</li>
+ * </ul>
+ * Laps carry a {@link LapData#TIME} channel and a {@link #TRUE_TIME} channel holding the outline time of
+ * each sample's true position, so matcher results can be checked against the ground truth. The same
+ * settings and seed always give the same lap.
+ * <p>
+ * Usage: {@code LapGenerator <output.csv|output.lapb> [--outline=<lap>] [--rate=<Hz>]
+ * [--duration=<s>|--samples=<n>] [--noise=<m>] [--offset=<m>] [--speed-variation=<fraction>]
+ * [--dropouts=<per minute>,<seconds>] [--seed=<n>]}
+ */
+public final class LapGenerator {
+
+    /**
+     * Outline time, in seconds from the outline's start, of the true position of every sample.
+     */
+    public static final String TRUE_TIME = "true_time";
+
+    private static final double METRES_PER_DEGREE = 111_320.0;
+
+    private final double[] lat;
+    private final double[] lon;
+    private final double[] speed;
+    private final double outlineRateHz;
+    private final double period;
+
+    private double rateHz = LapComparisonByLocation.SAMPLE_RATE_HZ;
+    private double noiseMetres;
+    private double offsetMetres;
+    private double speedVariation;
+    private double dropoutsPerMinute;
+    private double dropoutSeconds = 1;
+    private long seed = 1;
+
+    /**
+     * Generator following the outline of the given lap, which is brought to a uniform rate first.
+     */
+    public LapGenerator(LapData outline) {
+        final LapData uniform = LapResampler.uniform(outline);
+        if (uniform.size() < 2) {
+            throw new IllegalArgumentException("Outline needs at least two samples");
+        }
+        this.lat = uniform.channel(LapData.LAT).doubles();
+        this.lon = uniform.channel(LapData.LON).doubles();
+        this.speed = uniform.channel(LapData.SPEED).doubles();
+        final double[] time = uniform.time();
+        this.outlineRateHz = time != null
+            ? (uniform.size() - 1) / (time[time.length - 1] - time[0])
+            : LapComparisonByLocation.SAMPLE_RATE_HZ;
+        // the outline is closed from its last sample back to its first
+        this.period = uniform.size() / outlineRateHz;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: LapGenerator <output.csv|output.lapb> [--outline=<lap>] [--rate=<Hz>]"
+                + " [--duration=<s>|--samples=<n>] [--noise=<m>] [--offset=<m>] [--speed-variation=<fraction>]"
+                + " [--dropouts=<per minute>,<seconds>] [--seed=<n>]");
+            System.exit(1);
+        }
+        Path output = null;
+        String outline = "1m34.344s.csv";
+        Double duration = null;
+        Integer samples = null;
+        final Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                output = Path.of(arg);
+            }
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("No output file given");
+        }
+        if (options.containsKey("outline")) {
+            outline = options.get("outline");
+        }
+        final LapGenerator generator = new LapGenerator(LapDataLoader.loadFileOrResource(outline));
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            final String value = option.getValue();
+            switch (option.getKey()) {
+                case "outline" -> {
+                    // already applied
+                }
+                case "rate" -> generator.rateHz(Double.parseDouble(value));
+                case "duration" -> duration = Double.parseDouble(value);
+                case "samples" -> samples = Integer.parseInt(value);
+                case "noise" -> generator.gpsNoise(Double.parseDouble(value));
+                case "offset" -> generator.lineOffset(Double.parseDouble(value));
+                case "speed-variation" -> generator.speedVariation(Double.parseDouble(value));
+                case "dropouts" -> {
+                    final String[] dropouts = value.split(",");
+                    generator.dropouts(Double.parseDouble(dropouts[0]), Double.parseDouble(dropouts[1]));
+                }
+                case "seed" -> generator.seed(Long.parseLong(value));
+                default -> throw new IllegalArgumentException("Unknown option --" + option.getKey());
+            }
+        }
+        final int count = samples != null
+            ? samples
+            : (int) Math.round((duration != null ? duration : generator.outlinePeriod()) * generator.rateHz);
+
+        final long start = System.nanoTime();
+        final LapData lap = generator.generate(count);
+        if (output.toString().endsWith(BinaryLap.EXTENSION)) {
+            final LapData uniform = LapResampler.uniform(lap);
+            BinaryLap.write(output, ProjectedLap.of(
+                uniform, Projector.utm(LapComparisonByLocation.utmZone(uniform.lon()[0]), uniform.lat()[0] >= 0)
+            ), false);
+        } else {
+            LapCsvWriter.write(lap, output);
+        }
+        System.out.printf("Wrote %d samples to %s in %.2f s%n", lap.size(), output, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Time one lap of the outline takes at the outline's pace, in seconds.
+     */
+    public double outlinePeriod() {
+        return period;
+    }
+
+    public LapGenerator rateHz(double rateHz) {
+        this.rateHz = rateHz;
+        return this;
+    }
+
+    /**
+     * Standard deviation of the position error of every sample, in metres.
+     */
+    public LapGenerator gpsNoise(double metres) {
+        this.noiseMetres = metres;
+        return this;
+    }
+
+    /**
+     * Largest sideways offset from the outline, in metres.
+     */
+    public LapGenerator lineOffset(double metres) {
+        this.offsetMetres = metres;
+        return this;
+    }
+
+    /**
+     * Largest pace change relative to the outline, e.g. {@code 0.05} for ±5%.
+     */
+    public LapGenerator speedVariation(double fraction) {
+        this.speedVariation = fraction;
+        return this;
+    }
+
+    public LapGenerator dropouts(double perMinute, double seconds) {
+        this.dropoutsPerMinute = perMinute;
+        this.dropoutSeconds = seconds;
+        return this;
+    }
+
+    public LapGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Generates a lap of exactly {@code samples} samples; dropouts lengthen it in time, not in samples.
+     */
+    public LapData generate(int samples) {
+        final Random random = new Random(seed);
+        final Wave pace = new Wave(random, 20, 60);
+        final Wave offset = new Wave(random, 8, 30);
+
+        final double[] outLat = new double[samples];
+        final double[] outLon = new double[samples];
+        final double[] outSpeed = new double[samples];
+        final double[] outTime = new double[samples];
+        final double[] outTrueTime = new double[samples];
+
+        final double dt = 1 / rateHz;
+        final double dropoutChance = dropoutsPerMinute * dt / 60;
+        double time = 0;
+        double outlineTime = 0;
+        double dropoutUntil = -1;
+        int i = 0;
+        while (i < samples) {
+            final double paceFactor = 1 + speedVariation * pace.at(time);
+            final boolean dropped = time < dropoutUntil;
+            if (!dropped && dropoutChance > 0 && random.nextDouble() < dropoutChance) {
+                dropoutUntil = time + dropoutSeconds;
+            } else if (!dropped) {
+                // position and heading on the outline
+                final double position = (outlineTime % period) * outlineRateHz;
+                final int j = Math.min((int) position, lat.length - 1);
+                final int next = j + 1 == lat.length ? 0 : j + 1;
+                final double t = position - j;
+                final double sampleLat = lat[j] + t * (lat[next] - lat[j]);
+                final double sampleLon = lon[j] + t * (lon[next] - lon[j]);
+                final double metresPerLonDegree = METRES_PER_DEGREE * Math.cos(Math.toRadians(sampleLat));
+                final double east = (lon[next] - lon[j]) * metresPerLonDegree;
+                final double north = (lat[next] - lat[j]) * METRES_PER_DEGREE;
+                final double length = Math.sqrt(east * east + north * north);
+
+                // sideways offset to the left of the heading, plus noise
+                double eastShift = random.nextGaussian() * noiseMetres;
+                double northShift = random.nextGaussian() * noiseMetres;
+                if (length > 0) {
+                    final double sideways = offsetMetres * offset.at(time);
+                    eastShift -= north / length * sideways;
+                    northShift += east / length * sideways;
+                }
+
+                outLat[i] = sampleLat + northShift / METRES_PER_DEGREE;
+                outLon[i] = sampleLon + eastShift / metresPerLonDegree;
+                outSpeed[i] = (speed[j] + t * (speed[next] - speed[j])) * paceFactor;
+                outTime[i] = time;
+                outTrueTime[i] = outlineTime % period;
+                i++;
+            }
+            time += dt;
+            outlineTime += dt * paceFactor;
+        }
+
+        final Map<String, Channel> channels = new LinkedHashMap<>();
+        channels.put(LapData.LAT, Channel.of(outLat));
+        channels.put(LapData.LON, Channel.of(outLon));
+        channels.put(LapData.SPEED, Channel.of(outSpeed));
+        channels.put(LapData.TIME, Channel.of(outTime));
+        channels.put(TRUE_TIME, Channel.of(outTrueTime));
+        return new LapData(channels);
+    }
+
+    /**
+     * Smooth random signal in [-1, 1]: two sines with random periods in the given range and random phases.
+     */
+    private static final class Wave {
+        private final double frequency1, phase1, frequency2, phase2;
+
+        Wave(Random random, double minPeriod, double maxPeriod) {
+            frequency1 = 2 * Math.PI / (minPeriod + random.nextDouble() * (maxPeriod - minPeriod));
+            phase1 = random.nextDouble() * 2 * Math.PI;
+            frequency2 = 2 * Math.PI / (minPeriod + random.nextDouble() * (maxPeriod - minPeriod));
+            phase2 = random.nextDouble() * 2 * Math.PI;
+        }
+
+        double at(double time) {
+            return 0.6 * Math.sin(frequency1 * time + phase1) + 0.4 * Math.sin(frequency2 * time + phase2);
+        }
+    }
+}
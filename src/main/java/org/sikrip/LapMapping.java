@@ -0,0 +1,279 @@
+package org.sikrip;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Location based mapping of lap A's samples onto lap B.
+ * <p>
+ * For every lap A sample it holds a position on lap B: the index of a lap B sample plus a fraction
+ * towards the next one. Computing the mapping is the expensive part of a comparison; applying it
+ * to a lap B channel is a cheap linear pass.
+ */
+public final class LapMapping {
+
+    /**
+     * Half width, in lap B samples, of the search window around the last match.
+     */
+    static final int SEARCH_WINDOW = 50; // tune as needed
+
+    /**
+     * Windowed matches further away than this (metres) fall back to a global spatial index lookup.
+     */
+    static final double RESYNC_DISTANCE = 20.0;
+
+    /**
+     * Lap B sample (segment start) matched to each lap A sample.
+     */
+    public final int[] index;
+
+    /**
+     * Position between {@code index[i]} and {@code index[i] + 1}, in [0, 1].
+     */
+    public final double[] fraction;
+
+    LapMapping(int[] index, double[] fraction) {
+        this.index = index;
+        this.fraction = fraction;
+    }
+
+    /**
+     * Projects every lap A point onto the closest segment of lap B's polyline, so channels can be
+     * interpolated between lap B samples instead of snapping to the nearest one.
+     * <p>
+     * Only the {@link #SEARCH_WINDOW} segments on either side of the previous match are searched, so the
+     * cost is linear in the lap length. When the best segment in the window is further than
+     * {@link #RESYNC_DISTANCE}, the match is looked up in {@code indexB}, a spatial index over lap B, if
+     * one is given.
+     */
+    public static LapMapping onSegments(
+        double[] xA, double[] yA,
+        double[] xB, double[] yB,
+        GridIndex indexB
+    ) {
+        try (Instrumentation.Span span = Instrumentation.stage(Instrumentation.Stage.MATCH, xA.length)) {
+            return matchSegments(xA, yA, xB, yB, indexB);
+        }
+    }
+
+    private static LapMapping matchSegments(
+        double[] xA, double[] yA,
+        double[] xB, double[] yB,
+        GridIndex indexB
+    ) {
+        final int[] index = new int[xA.length];
+        final double[] fraction = new double[xA.length];
+        final int segments = xB.length - 1;
+        if (segments < 1) {
+            return new LapMapping(index, fraction);
+        }
+
+        final Cursor cursor = new Cursor();
+        for (int i = 0; i < xA.length; i++) {
+            cursor.advance(xA[i], yA[i], xB, yB, indexB);
+            index[i] = cursor.segment;
+            fraction[i] = cursor.fraction;
+        }
+
+        return new LapMapping(index, fraction);
+    }
+
+    /**
+     * Returns lap B's channel values at the mapped positions, interpolated linearly.
+     */
+    public double[] apply(double[] channelB) {
+        final double[] result = new double[index.length];
+        final int last = channelB.length - 1;
+        for (int i = 0; i < index.length; i++) {
+            final int j = index[i];
+            final double t = fraction[i];
+            result[i] = j < last ? channelB[j] + t * (channelB[j + 1] - channelB[j]) : channelB[j];
+        }
+        return result;
+    }
+
+    /**
+     * Applies the mapping to any number of lap B channels in a single pass: the matched position of each
+     * lap A sample is read once and used for every channel. Returns one array per channel.
+     */
+    public double[][] apply(double[]... channelsB) {
+        final int channels = channelsB.length;
+        final double[][] result = new double[channels][index.length];
+        if (channels == 0) {
+            return result;
+        }
+        final int last = channelsB[0].length - 1;
+        for (int i = 0; i < index.length; i++) {
+            final int j = index[i];
+            final double t = fraction[i];
+            if (j < last) {
+                for (int c = 0; c < channels; c++) {
+                    final double[] channel = channelsB[c];
+                    result[c][i] = channel[j] + t * (channel[j + 1] - channel[j]);
+                }
+            } else {
+                for (int c = 0; c < channels; c++) {
+                    result[c][i] = channelsB[c][j];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Maps one lap B channel onto lap A's samples, see {@link #values(LapData, String)}. The result keeps
+     * the channel's storage.
+     */
+    public Channel apply(LapData lapB, String name) {
+        return Channel.of(values(lapB, name)).as(lapB.channel(name).storage());
+    }
+
+    /**
+     * Values of one lap B channel at lap A's samples, reading it in place whatever its storage rather than
+     * widening it to doubles first. Discrete channels such as gear take the nearer lap B sample instead
+     * of being interpolated, see {@link LapData#isDiscrete(String)}.
+     */
+    public double[] values(LapData lapB, String name) {
+        final Channel channel = lapB.channel(name);
+        final boolean discrete = LapData.isDiscrete(name);
+        final double[] result = new double[index.length];
+        final int last = channel.size() - 1;
+        for (int i = 0; i < index.length; i++) {
+            final int j = index[i];
+            final double t = fraction[i];
+            if (j >= last) {
+                result[i] = channel.get(j);
+            } else if (discrete) {
+                result[i] = channel.get(t < 0.5 ? j : j + 1);
+            } else {
+                final double v0 = channel.get(j);
+                result[i] = v0 + t * (channel.get(j + 1) - v0);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Maps every channel of lap B onto lap A's samples, see {@link #apply(LapData, String)}. The result
+     * has lap A's length and keeps each channel's name and storage. Callers needing only some channels
+     * should map those by name.
+     */
+    public LapData apply(LapData lapB) {
+        final Map<String, Channel> channels = new LinkedHashMap<>();
+        for (String name : lapB.channels().keySet()) {
+            channels.put(name, apply(lapB, name));
+        }
+        return new LapData(channels);
+    }
+
+    /**
+     * Cumulative time delta of lap B against lap A at every lap A sample, for laps logged at a fixed rate.
+     * Positive values mean lap B reached that point of the track later than lap A, relative to where
+     * each lap started.
+     */
+    public double[] timeDelta(double sampleRateHz) {
+        final double[] delta = new double[index.length];
+        if (index.length == 0) {
+            return delta;
+        }
+        final double startB = index[0] + fraction[0];
+        for (int i = 0; i < index.length; i++) {
+            delta[i] = (index[i] + fraction[i] - startB - i) / sampleRateHz;
+        }
+        return delta;
+    }
+
+    /**
+     * Same as {@link #timeDelta(double)} for laps with explicit timestamps, in seconds.
+     */
+    public double[] timeDelta(double[] timeA, double[] timeB) {
+        final double[] delta = new double[index.length];
+        if (index.length == 0) {
+            return delta;
+        }
+        final int last = timeB.length - 1;
+        double startB = 0;
+        for (int i = 0; i < index.length; i++) {
+            final int j = index[i];
+            final double tB = j < last ? timeB[j] + fraction[i] * (timeB[j + 1] - timeB[j]) : timeB[j];
+            if (i == 0) {
+                startB = tB;
+            }
+            delta[i] = (tB - startB) - (timeA[i] - timeA[0]);
+        }
+        return delta;
+    }
+
+    /**
+     * Time delta using the laps' timestamps when both have them, or {@code sampleRateHz} otherwise.
+     */
+    public double[] timeDelta(LapData lapA, LapData lapB, double sampleRateHz) {
+        return lapA.has(LapData.TIME) && lapB.has(LapData.TIME)
+            ? timeDelta(lapA.time(), lapB.time())
+            : timeDelta(sampleRateHz);
+    }
+
+    /**
+     * The matching step shared by the batch matcher and {@link LiveMatcher}: the lap B segment matched to
+     * the last point, and how the next point moves it.
+     */
+    static final class Cursor {
+        int segment;
+        double fraction;
+        private double distance2;
+
+        /**
+         * Moves to the segment of lap B closest to (x, y) among the {@link #SEARCH_WINDOW} on either side
+         * of the current one. When the best of those is further than {@link #RESYNC_DISTANCE}, the two
+         * segments touching the sample {@code indexB} finds nearest are tried too, if an index is given.
+         */
+        void advance(double x, double y, double[] xB, double[] yB, GridIndex indexB) {
+            final int segments = xB.length - 1;
+            final int left = Math.max(0, segment - SEARCH_WINDOW);
+            final int right = Math.min(segments, segment + SEARCH_WINDOW);
+            segment = 0;
+            fraction = 0;
+            distance2 = Double.MAX_VALUE;
+            for (int j = left; j < right; j++) {
+                consider(x, y, xB, yB, j);
+            }
+            if (indexB != null && distance2 > RESYNC_DISTANCE * RESYNC_DISTANCE) {
+                // the nearest sample is the end of one of the two segments touching it
+                final int nearest = indexB.nearest(x, y);
+                for (int j = Math.max(0, nearest - 1); j <= Math.min(segments - 1, nearest); j++) {
+                    consider(x, y, xB, yB, j);
+                }
+            }
+        }
+
+        private void consider(double x, double y, double[] xB, double[] yB, int j) {
+            final double t = segmentFraction(x, y, xB, yB, j);
+            final double dist = segmentDistance2(x, y, xB, yB, j, t);
+            if (dist < distance2) {
+                distance2 = dist;
+                segment = j;
+                fraction = t;
+            }
+        }
+    }
+
+    /**
+     * Position of the projection of (x, y) onto segment j, clamped to [0, 1].
+     */
+    static double segmentFraction(double x, double y, double[] xB, double[] yB, int j) {
+        final double vx = xB[j + 1] - xB[j];
+        final double vy = yB[j + 1] - yB[j];
+        final double length2 = vx * vx + vy * vy;
+        if (length2 == 0) {
+            return 0;
+        }
+        final double t = ((x - xB[j]) * vx + (y - yB[j]) * vy) / length2;
+        return t < 0 ? 0 : Math.min(t, 1);
+    }
+
+    static double segmentDistance2(double x, double y, double[] xB, double[] yB, int j, double t) {
+        final double dx = x - (xB[j] + t * (xB[j + 1] - xB[j]));
+        final double dy = y - (yB[j] + t * (yB[j + 1] - yB[j]));
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,113 @@
+package org.sikrip;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Brings timestamped laps onto a uniform sample rate, so index based computations stay correct on logs
+ * with jitter or dropped samples.
+ * <p>
+ * Laps without timestamps, or whose timestamps are already uniform, are returned as is; only irregular
+ * laps are resampled, with a single linear interpolation pass. Discrete channels such as gear take the
+ * nearest sample, see {@link LapData#isDiscrete(String)}.
+ * <p>
+ * Resampling is eager: every channel is copied once, so later passes read plain samples rather than
+ * repeating the interpolation on each access.
+ */
+public final class LapResampler {
+
+    /**
+     * Largest relative deviation of a sample interval that still counts as uniform.
+     */
+    static final double UNIFORM_TOLERANCE = 0.01;
+
+    private LapResampler() {
+    }
+
+    /**
+     * Resamples to the lap's own nominal rate, see {@link #estimateRate(LapData)}.
+     */
+    public static LapData uniform(LapData lap) {
+        return !lap.has(LapData.TIME) || lap.size() < 2 ? lap : uniform(lap, estimateRate(lap));
+    }
+
+    /**
+     * Returns the lap at {@code rateHz}: the same instance when it has no timestamps or is already uniform
+     * at that rate, a resampled copy otherwise. Every channel is resampled and keeps its storage.
+     */
+    public static LapData uniform(LapData lap, double rateHz) {
+        final double[] time = lap.time();
+        if (time == null || time.length < 2 || isUniform(time, rateHz)) {
+            return lap;
+        }
+        final int last = time.length - 1;
+        final double start = time[0];
+        final int n = (int) Math.floor((time[last] - start) * rateHz + 1e-6) + 1;
+
+        final LapMapping positions = onAxis(time, start, 1 / rateHz, n);
+        final Map<String, Channel> channels = new LinkedHashMap<>();
+        for (String name : lap.channels().keySet()) {
+            if (LapData.TIME.equals(name)) {
+                final double[] uniformTime = new double[n];
+                for (int k = 0; k < n; k++) {
+                    uniformTime[k] = start + k / rateHz;
+                }
+                channels.put(name, Channel.of(uniformTime));
+            } else {
+                channels.put(name, positions.apply(lap, name));
+            }
+        }
+        return new LapData(channels);
+    }
+
+    /**
+     * Positions of the {@code n} points {@code start + k * step} on a non-decreasing source axis of at least
+     * two samples, such as timestamps or cumulative distance, as a mapping onto the source samples. Points
+     * beyond either end clamp to it. This is a single merge pass over the axis.
+     */
+    static LapMapping onAxis(double[] axis, double start, double step, int n) {
+        final int last = axis.length - 1;
+        final int[] segment = new int[n];
+        final double[] fraction = new double[n];
+        int j = 0;
+        for (int k = 0; k < n; k++) {
+            final double v = start + k * step;
+            while (j < last - 1 && axis[j + 1] <= v) {
+                j++;
+            }
+            final double span = axis[j + 1] - axis[j];
+            segment[k] = j;
+            fraction[k] = span > 0 ? Math.min(1, Math.max(0, (v - axis[j]) / span)) : 0;
+        }
+        return new LapMapping(segment, fraction);
+    }
+
+    /**
+     * Nominal sample rate of a timestamped lap: the inverse of its median sample interval, so dropouts and
+     * jitter do not skew it.
+     */
+    public static double estimateRate(LapData lap) {
+        final double[] time = lap.time();
+        final double[] intervals = new double[time.length - 1];
+        for (int i = 0; i < intervals.length; i++) {
+            intervals[i] = time[i + 1] - time[i];
+        }
+        Arrays.sort(intervals);
+        final double median = intervals[intervals.length / 2];
+        if (median <= 0) {
+            throw new IllegalArgumentException("Timestamps are not increasing");
+        }
+        return 1 / median;
+    }
+
+    static boolean isUniform(double[] time, double rateHz) {
+        final double expected = 1 / rateHz;
+        for (int i = 1; i < time.length; i++) {
+            if (Math.abs(time[i] - time[i - 1] - expected) > expected * UNIFORM_TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
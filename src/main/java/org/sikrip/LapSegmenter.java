@@ -0,0 +1,269 @@
+package org.sikrip;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Splits a continuous session log into laps at the start/finish line.
+ * <p>
+ * Positions are projected one at a time, and a lap ends where the segment between two consecutive
+ * samples intersects the line segment in the direction of travel. Crossings closer than
+ * {@link #MIN_LAP_DISTANCE} metres to the previous one are ignored, so GPS jitter around the line does
+ * not produce empty laps. The line is either given by its two ends or, by default, laid across the track
+ * at the first sample of the session, in which case the log is expected to start on the line. The default
+ * line is only laid once the car is {@link #MIN_HEADING_DISTANCE} metres away from the first sample, so
+ * GPS jitter while it stands on the grid cannot turn the line in a random direction.
+ * <p>
+ * A segmenter is stateful: use one instance per session.
+ * <p>
+ * Usage: {@code LapSegmenter <session.csv> [outputDir] [--line=lat1,lon1,lat2,lon2]}
+ */
+public final class LapSegmenter {
+
+    /**
+     * Width of the default line laid across the track, in metres.
+     */
+    static final double DEFAULT_LINE_WIDTH = 40.0;
+
+    /**
+     * Shortest distance between two counted line crossings, in metres.
+     */
+    static final double MIN_LAP_DISTANCE = 200.0;
+
+    /**
+     * Distance from the first sample the car must cover before the default line's direction is taken.
+     */
+    static final double MIN_HEADING_DISTANCE = 10.0;
+
+    private Projector projector;
+    private boolean hasLine;
+    private double lineX1, lineY1, lineX2, lineY2;
+    /**
+     * Side of the line the track crosses to, 0 until the first crossing of a given line.
+     */
+    private int direction;
+
+    // scratch arrays, so a sample is projected without allocating
+    private final double[] lat = new double[1];
+    private final double[] lon = new double[1];
+    private final double[] x = new double[1];
+    private final double[] y = new double[1];
+
+    private long samples;
+    private double firstX, firstY;
+    private double previousX, previousY;
+    private double distanceSinceCrossing;
+
+    /**
+     * Segmenter with a line laid across the track at the first sample, perpendicular to the direction of
+     * travel. The first sample starts the first lap.
+     */
+    public LapSegmenter() {
+    }
+
+    /**
+     * Segmenter for the start/finish line between two points. The samples before the first crossing are
+     * not part of any lap.
+     */
+    public LapSegmenter(double lat1, double lon1, double lat2, double lon2) {
+        this.projector = Projector.forTrack(lat1, lon1);
+        project(lat1, lon1);
+        lineX1 = x[0];
+        lineY1 = y[0];
+        project(lat2, lon2);
+        lineX2 = x[0];
+        lineY2 = y[0];
+        this.hasLine = true;
+        this.distanceSinceCrossing = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Segmenter with the line laid across the start of a reference lap, the way the default line is laid
+     * at the start of a session, for splitting a live feed on the reference's line. As with a line given
+     * by its ends, the samples before the first crossing are not part of any lap.
+     */
+    public static LapSegmenter atStartOf(LapData lap) {
+        final LapSegmenter segmenter = new LapSegmenter();
+        final Channel latitudes = lap.channel(LapData.LAT);
+        final Channel longitudes = lap.channel(LapData.LON);
+        for (int i = 0; i < lap.size() && !segmenter.hasLine; i++) {
+            segmenter.accept(latitudes.get(i), longitudes.get(i));
+        }
+        if (!segmenter.hasLine) {
+            throw new IllegalArgumentException("Lap never moves " + MIN_HEADING_DISTANCE + " m from its start");
+        }
+        // keep the line and its direction, start over with the samples
+        segmenter.samples = 0;
+        segmenter.distanceSinceCrossing = Double.POSITIVE_INFINITY;
+        return segmenter;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path session = null;
+        Path outputDir = null;
+        LapSegmenter segmenter = new LapSegmenter();
+        for (String arg : args) {
+            if (arg.startsWith("--line=")) {
+                final String[] ends = arg.substring("--line=".length()).split(",");
+                segmenter = new LapSegmenter(
+                    Double.parseDouble(ends[0]), Double.parseDouble(ends[1]),
+                    Double.parseDouble(ends[2]), Double.parseDouble(ends[3])
+                );
+            } else if (session == null) {
+                session = Path.of(arg);
+            } else {
+                outputDir = Path.of(arg);
+            }
+        }
+        if (session == null) {
+            System.err.println("Usage: LapSegmenter <session.csv> [outputDir] [--line=lat1,lon1,lat2,lon2]");
+            System.exit(1);
+        }
+        final Path output = outputDir != null ? outputDir : Path.of(".");
+        Files.createDirectories(output);
+
+        final int[] count = {0};
+        LapDataLoader.loadLaps(session, segmenter, lap -> {
+            count[0]++;
+            final Path file = output.resolve(String.format("lap_%03d.csv", count[0]));
+            System.out.printf(
+                "Lap %d: %d samples, %.3f s -> %s%n", count[0], lap.size(), PreparedLap.lapTime(lap), file
+            );
+            try {
+                LapCsvWriter.write(lap, file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write " + file, e);
+            }
+        });
+    }
+
+    /**
+     * Feeds the next sample of the session. Returns whether it is the first sample of a new lap, that is
+     * the track crossed the line since the previous sample.
+     */
+    public boolean accept(double latitude, double longitude) {
+        if (projector == null) {
+            projector = Projector.forTrack(latitude, longitude);
+        }
+        project(latitude, longitude);
+        final double px = x[0], py = y[0];
+        final long sample = samples++;
+        if (sample == 0) {
+            firstX = previousX = px;
+            firstY = previousY = py;
+            // the default line is laid at the first sample, which starts the first lap
+            return !hasLine;
+        }
+        if (!hasLine) {
+            final double hx = px - firstX, hy = py - firstY;
+            if (hx * hx + hy * hy < MIN_HEADING_DISTANCE * MIN_HEADING_DISTANCE) {
+                // not clearly moving yet, no reliable direction to lay the line across
+                return false;
+            }
+            layLine(hx, hy);
+        }
+
+        final double dx = px - previousX, dy = py - previousY;
+        distanceSinceCrossing += Math.sqrt(dx * dx + dy * dy);
+        final boolean crossed = crosses(previousX, previousY, px, py) && distanceSinceCrossing >= MIN_LAP_DISTANCE;
+        if (crossed) {
+            distanceSinceCrossing = 0;
+        }
+        previousX = px;
+        previousY = py;
+        return crossed;
+    }
+
+    /**
+     * Splits a session already in memory, handing every complete lap to {@code laps} as a slice of the
+     * session that shares its arrays.
+     */
+    public void split(LapData session, Consumer<LapData> laps) {
+        final Channel latitudes = session.channel(LapData.LAT);
+        final Channel longitudes = session.channel(LapData.LON);
+        int lapStart = -1;
+        for (int i = 0; i < session.size(); i++) {
+            if (accept(latitudes.get(i), longitudes.get(i))) {
+                if (lapStart >= 0) {
+                    laps.accept(session.slice(lapStart, i));
+                }
+                lapStart = i;
+            }
+        }
+    }
+
+    /**
+     * Segments the rows of a parser as they are parsed: on every crossing the rows before the crossing
+     * sample are taken from the parser and, unless they precede the first crossing, handed to {@code laps}.
+     * Rows after the last crossing remain in the parser.
+     */
+    public void attach(LatLonSpeedCsvParser parser, Consumer<LapData> laps) {
+        final boolean[] inLap = {false};
+        parser.onRow((latitude, longitude) -> {
+            if (accept(latitude, longitude)) {
+                final LapData lap = parser.take(parser.rows() - 1);
+                if (inLap[0]) {
+                    laps.accept(lap);
+                }
+                inLap[0] = true;
+            }
+        });
+    }
+
+    /**
+     * Lays the default line across the first sample, perpendicular to the heading {@code (hx, hy)}, so
+     * that travelling along the heading crosses it forwards.
+     */
+    private void layLine(double hx, double hy) {
+        final double length = Math.sqrt(hx * hx + hy * hy);
+        final double nx = -hy / length * DEFAULT_LINE_WIDTH / 2;
+        final double ny = hx / length * DEFAULT_LINE_WIDTH / 2;
+        lineX1 = firstX + nx;
+        lineY1 = firstY + ny;
+        lineX2 = firstX - nx;
+        lineY2 = firstY - ny;
+        direction = 1;
+        hasLine = true;
+    }
+
+    /**
+     * Whether the step from {@code (px, py)} to {@code (qx, qy)} intersects the line in the direction of
+     * travel. The first crossing of a given line sets that direction.
+     */
+    private boolean crosses(double px, double py, double qx, double qy) {
+        final double from = side(px, py);
+        final double to = side(qx, qy);
+        final boolean changesSide = direction == 0
+            ? (from <= 0 && to > 0) || (from >= 0 && to < 0)
+            : from * direction <= 0 && to * direction > 0;
+        if (!changesSide) {
+            return false;
+        }
+        // the line's ends must lie on either side of the step
+        final double end1 = (qx - px) * (lineY1 - py) - (qy - py) * (lineX1 - px);
+        final double end2 = (qx - px) * (lineY2 - py) - (qy - py) * (lineX2 - px);
+        if (end1 * end2 > 0) {
+            return false;
+        }
+        if (direction == 0) {
+            direction = to > 0 ? 1 : -1;
+        }
+        return true;
+    }
+
+    /**
+     * Cross product telling on which side of the line a point is.
+     */
+    private double side(double px, double py) {
+        return (lineX2 - lineX1) * (py - lineY1) - (lineY2 - lineY1) * (px - lineX1);
+    }
+
+    private void project(double latitude, double longitude) {
+        lat[0] = latitude;
+        lon[0] = longitude;
+        projector.project(lat, lon, x, y, 0, 1);
+    }
+}
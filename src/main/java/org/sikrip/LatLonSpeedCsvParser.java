@@ -0,0 +1,409 @@
+package org.sikrip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming parser for lap CSV files: {@code lat,lon,speed} plus any number of other numeric channels.
+ * <p>
+ * Bytes are decoded straight into growable primitive buffers: there is no per-row {@code String[]},
+ * no {@code Double} boxing and no intermediate lists. The first line is the header and every column becomes
+ * a {@link Channel} named after it; {@code latitude}, {@code longitude}, {@code timestamp} etc. are
+ * recognised as the standard {@link LapData} channels. Any of lat/lon/speed the header does not name is taken
+ * by position from the historic {@code lat,lon,speed} layout of the first three columns (a named time column
+ * aside), and a leading UTF-8 byte order mark is ignored. Parsed values equal {@link Double#parseDouble}'s:
+ * numbers of up to 15 significant digits and a power of ten up to 22 are converted directly, the rare
+ * others fall back to it.
+ * <p>
+ * Fields may be quoted and surrounded by whitespace. The standard channels must hold a number in every
+ * row; in other channels an empty, {@code NaN} or non-numeric cell is a missing sample, kept as
+ * {@code NaN}, so text columns and the gaps of multi-rate loggers do not reject the lap.
+ * <p>
+ * The parser is push based ({@link #accept(byte)}), so it can be fed from any byte source. A
+ * {@link RowListener} sees the position of every row as soon as it is parsed, and {@link #take(int)} hands
+ * the rows parsed so far over as a lap, so a session can be split while it streams through.
+ */
+public final class LatLonSpeedCsvParser {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String BYTE_ORDER_MARK = "\uFEFF";
+    private static final Set<String> STANDARD_CHANNELS = Set.of(
+        LapData.LAT, LapData.LON, LapData.SPEED, LapData.TIME
+    );
+    private static final long MANTISSA_LIMIT = Long.MAX_VALUE / 10 - 9;
+    private static final long EXACT_MANTISSA = 1L << 53;
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Called after every parsed row with its latitude and longitude.
+     */
+    @FunctionalInterface
+    public interface RowListener {
+        void row(double lat, double lon);
+    }
+
+    private final int expectedRows;
+    private final Channel.Storage storage;
+
+    private final ByteArrayOutputStream header = new ByteArrayOutputStream();
+    private boolean inHeader = true;
+    private long line = 1;
+    private int column;
+
+    private String[] names;
+    private DoubleArrayBuilder[] columns;
+    private int latColumn;
+    private int lonColumn;
+    private boolean[] strict;
+    private RowListener rowListener;
+
+    // state of the field being parsed
+    private boolean hasContent;
+    private boolean inQuotes;
+    private boolean afterQuote;
+    private boolean closed;
+    private boolean invalid;
+    private boolean hasNumber;
+    private byte[] field = new byte[32];
+    private int fieldLength;
+    private boolean hasDigits;
+    private boolean negative;
+    private boolean hasSign;
+    private long mantissa;
+    private int decimalExponent;
+    private boolean inFraction;
+    private boolean inExponent;
+    private boolean exponentNegative;
+    private boolean exponentSigned;
+    private int exponent;
+
+    public LatLonSpeedCsvParser() {
+        this(1024, Channel.Storage.DOUBLE);
+    }
+
+    /**
+     * @param expectedRows sizing hint for the column buffers
+     * @param storage      storage of the parsed channels; lat, lon and time are always kept as doubles
+     */
+    public LatLonSpeedCsvParser(int expectedRows, Channel.Storage storage) {
+        this.expectedRows = expectedRows;
+        this.storage = storage;
+    }
+
+    /**
+     * Parses the whole stream into a {@link LapData}. The stream is not closed.
+     */
+    public static LapData parse(InputStream in) throws IOException {
+        final LatLonSpeedCsvParser parser = new LatLonSpeedCsvParser();
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                parser.accept(buffer[i]);
+            }
+        }
+        return parser.finish();
+    }
+
+    public void onRow(RowListener listener) {
+        this.rowListener = listener;
+    }
+
+    /**
+     * Feeds the next byte of the file.
+     */
+    public void accept(byte b) {
+        if (inHeader) {
+            if (b == '\n') {
+                endHeader();
+            } else if (b != '\r') {
+                header.write(b);
+            }
+            return;
+        }
+        if (inQuotes) {
+            if (b == '"') {
+                inQuotes = false;
+                afterQuote = true;
+                closed = true;
+            } else {
+                if (b == '\n') {
+                    line++;
+                }
+                content(b);
+            }
+            return;
+        }
+        final boolean escapedQuote = afterQuote;
+        afterQuote = false;
+        switch (b) {
+            case ',' -> endField();
+            case '\n' -> endRow();
+            case '"' -> {
+                if (escapedQuote) {
+                    // "" inside a quoted field is a literal quote, so the field is text
+                    inQuotes = true;
+                    invalid = true;
+                } else if (hasContent) {
+                    invalid = true;
+                } else {
+                    inQuotes = true;
+                    hasContent = true;
+                }
+            }
+            default -> content(b);
+        }
+    }
+
+    /**
+     * Parses a byte of a field's value. Whitespace is only allowed around the number, and anything that
+     * is not part of one marks the field as {@link #invalid}.
+     */
+    private void content(byte b) {
+        if (b == ' ' || b == '\t' || b == '\r') {
+            if (hasNumber) {
+                closed = true;
+            }
+            return;
+        }
+        hasContent = true;
+        if (closed || invalid) {
+            invalid = true;
+            return;
+        }
+        hasNumber = true;
+        if (fieldLength == field.length) {
+            field = Arrays.copyOf(field, 2 * fieldLength);
+        }
+        field[fieldLength++] = b;
+        switch (b) {
+            case '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> digit(b - '0');
+            case '.' -> {
+                if (inFraction || inExponent) {
+                    invalid = true;
+                }
+                inFraction = true;
+            }
+            case '-' -> sign(true);
+            case '+' -> sign(false);
+            case 'e', 'E' -> {
+                if (!hasDigits || inExponent) {
+                    invalid = true;
+                }
+                inExponent = true;
+                hasDigits = false;
+            }
+            default -> invalid = true;
+        }
+    }
+
+    /**
+     * Completes parsing (handling a last row without trailing newline) and returns the parsed lap.
+     */
+    public LapData finish() {
+        if (inHeader) {
+            endHeader();
+        } else {
+            endRow();
+        }
+        final Map<String, Channel> channels = new LinkedHashMap<>();
+        for (int c = 0; c < names.length; c++) {
+            channels.put(names[c], stored(c, Channel.of(columns[c].toArray())));
+        }
+        return new LapData(channels);
+    }
+
+    /**
+     * Number of rows parsed and not yet taken.
+     */
+    public int rows() {
+        return columns == null ? 0 : columns[0].size();
+    }
+
+    /**
+     * Removes the first {@code rows} parsed rows and returns them as a lap, in arrays of exactly that length.
+     * The parser keeps its buffers for the rows that follow.
+     */
+    public LapData take(int rows) {
+        final Map<String, Channel> channels = new LinkedHashMap<>();
+        for (int c = 0; c < names.length; c++) {
+            channels.put(names[c], stored(c, Channel.of(columns[c].removeFirst(rows))));
+        }
+        return new LapData(channels);
+    }
+
+    private Channel stored(int column, Channel channel) {
+        final boolean precise = LapData.LAT.equals(names[column]) || LapData.LON.equals(names[column])
+            || LapData.TIME.equals(names[column]);
+        return precise ? channel : channel.as(storage);
+    }
+
+    private void endHeader() {
+        inHeader = false;
+        line++;
+
+        String text = header.toString(StandardCharsets.UTF_8);
+        if (text.startsWith(BYTE_ORDER_MARK)) {
+            text = text.substring(BYTE_ORDER_MARK.length());
+        }
+        final String[] fields = text.split(",", -1);
+        names = new String[fields.length];
+        final Set<String> used = new HashSet<>();
+        for (int c = 0; c < fields.length; c++) {
+            final String name = channelName(fields[c].replace("\"", "").trim());
+            names[c] = name.isEmpty() || !used.add(name) ? "column" + (c + 1) : name;
+            used.add(names[c]);
+        }
+        // a required channel no header names keeps its historic position in the lat,lon,speed layout,
+        // counted over the columns other than a named time column
+        final String[] required = {LapData.LAT, LapData.LON, LapData.SPEED};
+        int position = 0;
+        for (int c = 0; c < names.length && position < required.length; c++) {
+            if (LapData.TIME.equals(names[c])) {
+                continue;
+            }
+            final String channel = required[position++];
+            if (!used.contains(channel) && !STANDARD_CHANNELS.contains(names[c])) {
+                names[c] = channel;
+                used.add(channel);
+            }
+        }
+        for (int c = 0; c < names.length; c++) {
+            if (LapData.LAT.equals(names[c])) {
+                latColumn = c;
+            } else if (LapData.LON.equals(names[c])) {
+                lonColumn = c;
+            }
+        }
+        strict = new boolean[names.length];
+        for (int c = 0; c < names.length; c++) {
+            strict[c] = STANDARD_CHANNELS.contains(names[c]);
+        }
+        columns = new DoubleArrayBuilder[names.length];
+        for (int c = 0; c < names.length; c++) {
+            columns[c] = new DoubleArrayBuilder(expectedRows);
+        }
+    }
+
+    private void digit(int d) {
+        hasDigits = true;
+        if (inExponent) {
+            if (exponent < 10_000) {
+                exponent = exponent * 10 + d;
+            }
+        } else if (mantissa < MANTISSA_LIMIT) {
+            mantissa = mantissa * 10 + d;
+            if (inFraction) {
+                decimalExponent--;
+            }
+        } else if (!inFraction) {
+            // digits beyond long precision only scale the value
+            decimalExponent++;
+        }
+    }
+
+    private void sign(boolean minus) {
+        if (inExponent && !hasDigits && !exponentSigned) {
+            exponentNegative = minus;
+            exponentSigned = true;
+        } else if (!hasDigits && !inFraction && !inExponent && !hasSign) {
+            negative = minus;
+            hasSign = true;
+        } else {
+            invalid = true;
+        }
+    }
+
+    private void endField() {
+        if (column < columns.length) {
+            if (invalid || inQuotes || !hasDigits) {
+                // only the standard channels must be numbers, other channels record a missing sample
+                if (strict[column]) {
+                    throw malformed();
+                }
+                columns[column].add(Double.NaN);
+            } else {
+                columns[column].add(fieldValue());
+            }
+        }
+        column++;
+        resetField();
+    }
+
+    private void endRow() {
+        if (column == 0 && !hasContent) {
+            // blank line
+            resetField();
+            line++;
+            return;
+        }
+        endField();
+        if (column != columns.length) {
+            throw new NumberFormatException("Expected " + columns.length + " columns at line " + line);
+        }
+        column = 0;
+        line++;
+        if (rowListener != null) {
+            final int row = columns[0].size() - 1;
+            rowListener.row(columns[latColumn].get(row), columns[lonColumn].get(row));
+        }
+    }
+
+    private double fieldValue() {
+        final int exp10 = decimalExponent + (exponentNegative ? -exponent : exponent);
+        if (mantissa <= EXACT_MANTISSA && Math.abs(exp10) < POW10.length) {
+            // both operands are exact doubles, so the single rounding of the product or quotient is correct
+            final double value = exp10 >= 0 ? mantissa * POW10[exp10] : mantissa / POW10[-exp10];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(field, 0, fieldLength, StandardCharsets.ISO_8859_1));
+    }
+
+    private void resetField() {
+        hasContent = false;
+        inQuotes = false;
+        afterQuote = false;
+        closed = false;
+        invalid = false;
+        hasNumber = false;
+        fieldLength = 0;
+        hasDigits = false;
+        negative = false;
+        hasSign = false;
+        mantissa = 0;
+        decimalExponent = 0;
+        inFraction = false;
+        inExponent = false;
+        exponentNegative = false;
+        exponentSigned = false;
+        exponent = 0;
+    }
+
+    private NumberFormatException malformed() {
+        return new NumberFormatException("Malformed number at line " + line + ", column " + (column + 1));
+    }
+
+    /**
+     * Maps the usual spellings of the standard channels to their {@link LapData} names.
+     */
+    private static String channelName(String header) {
+        return switch (header.toLowerCase(Locale.ROOT)) {
+            case "lat", "latitude" -> LapData.LAT;
+            case "lon", "lng", "longitude" -> LapData.LON;
+            case "speed" -> LapData.SPEED;
+            case "time", "timestamp" -> LapData.TIME;
+            default -> header;
+        };
+    }
+}
@@ -0,0 +1,158 @@
+package org.sikrip;
+
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import org.knowm.xchart.SwingWrapper;
+import org.knowm.xchart.XChartPanel;
+import org.knowm.xchart.XYChart;
+import org.knowm.xchart.XYChartBuilder;
+import org.knowm.xchart.style.markers.None;
+
+/**
+ * Speed and time delta charts of a live session, updated while samples arrive.
+ * <p>
+ * Samples are appended from any thread into {@link RingSeries} buffers, which hold the last
+ * {@code capacity} points without allocating. The charts are redrawn by a Swing timer on the event
+ * dispatch thread, at most once per display refresh and only when new samples arrived, so a burst of
+ * samples costs one repaint and the cost of a frame is bounded by the capacity, not by the session length.
+ * Frames copy the rings into arrays allocated once, so redrawing allocates nothing either.
+ */
+public final class LiveChart {
+
+    /**
+     * Points kept per series: about two laps at 25 Hz.
+     */
+    public static final int DEFAULT_CAPACITY = 6000;
+
+    private static final int FALLBACK_REFRESH_RATE_HZ = 60;
+
+    private final XYChart speedChart;
+    private final XYChart deltaChart;
+    private final RingSeries speed;
+    private final RingSeries delta;
+    private final Trace speedTrace;
+    private final Trace deltaTrace;
+
+    private XChartPanel<XYChart> speedPanel;
+    private XChartPanel<XYChart> deltaPanel;
+
+    public LiveChart() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LiveChart(int capacity) {
+        this.speed = new RingSeries(capacity);
+        this.delta = new RingSeries(capacity);
+        this.speedTrace = new Trace(capacity);
+        this.deltaTrace = new Trace(capacity);
+
+        speedChart = new XYChartBuilder()
+            .width(800).height(400)
+            .title("Live Speed")
+            .xAxisTitle("Lap Time (s)")
+            .yAxisTitle("Speed (m/s)")
+            .build();
+        speedChart.addSeries("Speed", new double[]{0}, new double[]{0}).setMarker(new None());
+
+        deltaChart = new XYChartBuilder()
+            .width(800).height(400)
+            .title("Live Time Delta (vs reference)")
+            .xAxisTitle("Lap Time (s)")
+            .yAxisTitle("Delta (s)")
+            .build();
+        deltaChart.addSeries("Delta", new double[]{0}, new double[]{0}).setMarker(new None());
+    }
+
+    /**
+     * Appends a sample, at {@code lapTime} seconds from the start of the lap; may be called from any thread.
+     */
+    public void add(double lapTime, double speedValue, double deltaValue) {
+        speed.add(lapTime, speedValue);
+        delta.add(lapTime, deltaValue);
+    }
+
+    /**
+     * Clears both charts, e.g. when a new lap starts.
+     */
+    public void clear() {
+        speed.clear();
+        delta.clear();
+    }
+
+    /**
+     * Opens the charts and starts redrawing them at the display's refresh rate.
+     */
+    public void show() {
+        final SwingWrapper<XYChart> wrapper = new SwingWrapper<>(List.of(speedChart, deltaChart));
+        wrapper.setTitle("Live Session").displayChartMatrix();
+        speedPanel = wrapper.getXChartPanel(0);
+        deltaPanel = wrapper.getXChartPanel(1);
+
+        SwingUtilities.invokeLater(() -> {
+            final Timer timer = new Timer(1000 / refreshRateHz(), event -> refresh());
+            timer.setCoalesce(true);
+            timer.start();
+        });
+    }
+
+    private void refresh() {
+        speedTrace.update(speedChart, speedPanel, "Speed", speed);
+        deltaTrace.update(deltaChart, deltaPanel, "Delta", delta);
+    }
+
+    private static int refreshRateHz() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return FALLBACK_REFRESH_RATE_HZ;
+        }
+        final DisplayMode mode = GraphicsEnvironment.getLocalGraphicsEnvironment()
+            .getDefaultScreenDevice().getDisplayMode();
+        return mode.getRefreshRate() == DisplayMode.REFRESH_RATE_UNKNOWN
+            ? FALLBACK_REFRESH_RATE_HZ
+            : mode.getRefreshRate();
+    }
+
+    /**
+     * The arrays a series is drawn from, allocated once at the ring's capacity and only touched on the
+     * event dispatch thread. XChart draws whole arrays, so the points past the series' length repeat its
+     * last x with a {@code NaN} y, which XChart skips: the trace shrinks on a new lap without reallocating.
+     */
+    private static final class Trace {
+        private final double[] x;
+        private final double[] y;
+        private int shown;
+        private long drawn = -1;
+
+        Trace(int capacity) {
+            this.x = new double[capacity];
+            this.y = new double[capacity];
+            this.shown = capacity;
+        }
+
+        /**
+         * Pushes the series into the chart if it changed since it was last drawn. Points appended during
+         * the copy are drawn on the next frame.
+         */
+        void update(XYChart chart, XChartPanel<XYChart> panel, String name, RingSeries series) {
+            final long appended = series.appended();
+            if (appended == drawn) {
+                return;
+            }
+            drawn = appended;
+            final int size = series.copyTo(x, y);
+            if (size == 0) {
+                return;
+            }
+            if (size < shown) {
+                Arrays.fill(x, size, shown, x[size - 1]);
+                Arrays.fill(y, size, shown, Double.NaN);
+            }
+            shown = size;
+            chart.updateXYSeries(name, x, y, null);
+            panel.repaint();
+        }
+    }
+}
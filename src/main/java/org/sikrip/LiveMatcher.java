@@ -0,0 +1,121 @@
+package org.sikrip;
+
+/**
+ * Incremental version of {@link LapMapping#onSegments} for live telemetry: samples are matched against a
+ * reference lap one at a time, as they arrive, and turned into a running time delta.
+ * <p>
+ * The matcher keeps the batch matcher's windowed cursor as state and advances it with the same step, so
+ * each sample costs a fixed window scan (plus an occasional {@link GridIndex} resync). Samples are
+ * projected through scratch arrays, so with the {@code tm} and {@code enu} projectors {@link #accept}
+ * allocates nothing (zero bytes over a hundred replayed laps, by the thread allocation counter); with
+ * Proj4J only what its transform allocates internally remains. With instrumentation enabled, every sample
+ * is a {@code MATCH} stage run, and its span is allocated. The reference lap's projection, spatial index
+ * and sample times are computed once up front. A matcher is not thread-safe: feed it from one thread.
+ */
+public final class LiveMatcher {
+
+    private final Projector projector;
+    private final double[] x;
+    private final double[] y;
+    private final double[] time;
+    private final GridIndex index;
+
+    // scratch arrays, so a sample is projected without allocating
+    private final double[] lat = new double[1];
+    private final double[] lon = new double[1];
+    private final double[] px = new double[1];
+    private final double[] py = new double[1];
+
+    private final LapMapping.Cursor cursor = new LapMapping.Cursor();
+    private boolean inLap;
+    private double lapStartTime;
+    private double referenceStartTime;
+    private double delta;
+
+    public LiveMatcher(PreparedLap reference) {
+        if (reference.projected.x.length < 2) {
+            throw new IllegalArgumentException("Reference lap needs at least two samples");
+        }
+        this.projector = reference.projected.projector;
+        this.x = reference.projected.x;
+        this.y = reference.projected.y;
+        this.index = reference.index;
+        this.time = referenceTimes(reference.projected.lap);
+    }
+
+    /**
+     * Matches the next sample, taken at {@code sampleTime} seconds, and returns the running time delta:
+     * positive when the live lap is behind the reference at this point of the track.
+     */
+    public double accept(double latitude, double longitude, double sampleTime) {
+        try (Instrumentation.Span span = Instrumentation.stage(Instrumentation.Stage.MATCH, 1)) {
+            return match(latitude, longitude, sampleTime);
+        }
+    }
+
+    private double match(double latitude, double longitude, double sampleTime) {
+        lat[0] = latitude;
+        lon[0] = longitude;
+        projector.project(lat, lon, px, py, 0, 1);
+
+        cursor.advance(px[0], py[0], x, y, index);
+
+        final double referenceTime = referenceTime();
+        if (!inLap) {
+            inLap = true;
+            lapStartTime = sampleTime;
+            referenceStartTime = referenceTime;
+        }
+        delta = (sampleTime - lapStartTime) - (referenceTime - referenceStartTime);
+        return delta;
+    }
+
+    /**
+     * Starts a new lap: the next sample is matched from the reference's start and its time becomes the
+     * lap's zero. The cursor must restart there: on a closed track the segment globally nearest to a lap's
+     * first sample may well be the reference's end.
+     */
+    public void reset() {
+        inLap = false;
+        cursor.segment = 0;
+        cursor.fraction = 0;
+        delta = 0;
+    }
+
+    /**
+     * Reference lap segment matched to the last sample.
+     */
+    public int segment() {
+        return cursor.segment;
+    }
+
+    /**
+     * Position of the last sample along {@link #segment()}, in [0, 1].
+     */
+    public double fraction() {
+        return cursor.fraction;
+    }
+
+    public double delta() {
+        return delta;
+    }
+
+    /**
+     * Reference lap time at the last sample's matched position, in seconds from the reference's start.
+     */
+    public double referenceTime() {
+        final int segment = cursor.segment;
+        return time[segment] + cursor.fraction * (time[segment + 1] - time[segment]);
+    }
+
+    private static double[] referenceTimes(LapData lap) {
+        if (lap.has(LapData.TIME)) {
+            return lap.time();
+        }
+        final double[] times = new double[lap.size()];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = i / LapComparisonByLocation.SAMPLE_RATE_HZ;
+        }
+        return times;
+    }
+}
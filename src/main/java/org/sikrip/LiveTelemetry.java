@@ -0,0 +1,124 @@
+package org.sikrip;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.net.Socket;
+
+/**
+ * Live comparison client: reads GPS frames from a {@link ReplayServer} (or any feed speaking its frame
+ * format) and prints the running time delta against a reference lap as every sample arrives.
+ * <p>
+ * Laps are split where the feed crosses the reference lap's start/finish line ({@link LapSegmenter}); at
+ * every crossing the matcher is reset, so each lap's delta counts from its own start.
+ * <p>
+ * Frames are decoded straight into primitives and matched by a {@link LiveMatcher}, so decoding and
+ * matching a sample do not allocate. The console line is only refreshed {@link #CONSOLE_REFRESH_HZ} times
+ * a second, since formatting it does. The matching latency of every sample is measured and summarised at
+ * the end.
+ * <p>
+ * With {@code --chart} the speed and delta are also plotted live, see {@link LiveChart}.
+ * <p>
+ * Usage: {@code LiveTelemetry [reference lap] [--host=<host>] [--port=<port>] [--chart]}
+ */
+public class LiveTelemetry {
+
+    static final int CONSOLE_REFRESH_HZ = 10;
+
+    public static void main(String[] args) throws Exception {
+        String referenceName = "1m34.344s.csv";
+        String host = "localhost";
+        int port = ReplayServer.DEFAULT_PORT;
+        boolean chart = false;
+        for (String arg : args) {
+            if (arg.equals("--chart")) {
+                chart = true;
+            } else if (arg.startsWith("--host=")) {
+                host = arg.substring("--host=".length());
+            } else if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else {
+                referenceName = arg;
+            }
+        }
+
+        // === Prepare the reference once: projection, spatial index, sample times ===
+        final PreparedLap reference = PreparedLap.of(
+            LapDataLoader.project(LapDataLoader.loadFileOrResource(referenceName), null)
+        );
+        final LiveMatcher matcher = new LiveMatcher(reference);
+        final LapSegmenter segmenter = LapSegmenter.atStartOf(reference.projected.lap);
+        final LiveChart liveChart = chart ? new LiveChart() : null;
+        if (liveChart != null) {
+            liveChart.show();
+        }
+
+        // === Match samples as they arrive ===
+        long samples = 0;
+        long totalNanos = 0;
+        long maxNanos = 0;
+        long nextPrint = System.nanoTime();
+        double lastTime = 0;
+        double lapStart = Double.NaN;
+        int laps = 0;
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            final DataInputStream in = new DataInputStream(
+                new BufferedInputStream(socket.getInputStream(), ReplayServer.FRAME_BYTES * 64)
+            );
+            System.out.printf(
+                "Connected to %s:%d, reference %s (%.3f s)%n", host, port, referenceName, reference.lapTime
+            );
+            while (true) {
+                final double time;
+                final double lat;
+                final double lon;
+                final double speed;
+                try {
+                    time = in.readDouble();
+                    lat = in.readDouble();
+                    lon = in.readDouble();
+                    speed = in.readDouble();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (segmenter.accept(lat, lon)) {
+                    if (laps > 0) {
+                        System.out.printf("\rLap %d: delta %+7.3f s%n", laps, matcher.delta());
+                    }
+                    laps++;
+                    lapStart = time;
+                    matcher.reset();
+                    if (liveChart != null) {
+                        liveChart.clear();
+                    }
+                }
+                final long start = System.nanoTime();
+                final double delta = matcher.accept(lat, lon, time);
+                final long nanos = System.nanoTime() - start;
+
+                samples++;
+                lastTime = time;
+                totalNanos += nanos;
+                maxNanos = Math.max(maxNanos, nanos);
+                if (Double.isNaN(lapStart)) {
+                    lapStart = time;
+                }
+                if (liveChart != null) {
+                    liveChart.add(time - lapStart, speed, delta);
+                }
+                if (start - nextPrint >= 0) {
+                    nextPrint = start + 1_000_000_000L / CONSOLE_REFRESH_HZ;
+                    System.out.printf("\rt=%7.1f s  delta=%+7.3f s", time, delta);
+                }
+            }
+        }
+        if (samples > 0) {
+            System.out.printf("\rt=%7.1f s  delta=%+7.3f s%n", lastTime, matcher.delta());
+            System.out.printf(
+                "%d samples, matching latency mean %.1f us, max %.1f us%n",
+                samples, totalNanos / 1e3 / samples, maxNanos / 1e3
+            );
+        }
+    }
+}
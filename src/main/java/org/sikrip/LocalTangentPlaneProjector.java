@@ -0,0 +1,71 @@
+package org.sikrip;
+
+/**
+ * Projects WGS84 coordinates into a local East-North-Up tangent plane around a fixed origin.
+ * <p>
+ * All laps of a track are projected around the same origin, so they share one frame by construction and
+ * there are no UTM zone edges to cross. Over a circuit-sized area the plane is accurate to millimetres.
+ */
+public final class LocalTangentPlaneProjector implements Projector {
+
+    private static final double A = 6378137.0;
+    private static final double F = 1 / 298.257223563;
+    private static final double E2 = F * (2 - F);
+
+    private final double originLat;
+    private final double originLon;
+
+    private final double sinLat0, cosLat0, sinLon0, cosLon0;
+    private final double x0, y0, z0;
+
+    /**
+     * @param originLat latitude of the origin, in degrees
+     * @param originLon longitude of the origin, in degrees
+     */
+    public LocalTangentPlaneProjector(double originLat, double originLon) {
+        this.originLat = originLat;
+        this.originLon = originLon;
+
+        final double phi0 = Math.toRadians(originLat);
+        final double lambda0 = Math.toRadians(originLon);
+        sinLat0 = Math.sin(phi0);
+        cosLat0 = Math.cos(phi0);
+        sinLon0 = Math.sin(lambda0);
+        cosLon0 = Math.cos(lambda0);
+
+        final double n0 = A / Math.sqrt(1 - E2 * sinLat0 * sinLat0);
+        x0 = n0 * cosLat0 * cosLon0;
+        y0 = n0 * cosLat0 * sinLon0;
+        z0 = n0 * (1 - E2) * sinLat0;
+    }
+
+    @Override
+    public void project(double[] lat, double[] lon, double[] x, double[] y, int from, int to) {
+        for (int i = from; i < to; i++) {
+            final double phi = Math.toRadians(lat[i]);
+            final double lambda = Math.toRadians(lon[i]);
+            final double sinPhi = Math.sin(phi);
+            final double cosPhi = Math.cos(phi);
+
+            // geodetic to earth centred earth fixed, at zero height, relative to the origin
+            final double n = A / Math.sqrt(1 - E2 * sinPhi * sinPhi);
+            final double dx = n * cosPhi * Math.cos(lambda) - x0;
+            final double dy = n * cosPhi * Math.sin(lambda) - y0;
+            final double dz = n * (1 - E2) * sinPhi - z0;
+
+            x[i] = -sinLon0 * dx + cosLon0 * dy;
+            y[i] = -sinLat0 * cosLon0 * dx - sinLat0 * sinLon0 * dy + cosLat0 * dz;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof LocalTangentPlaneProjector other
+            && other.originLat == originLat && other.originLon == originLon;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(originLat) * 31 + Double.hashCode(originLon);
+    }
+}
@@ -0,0 +1,60 @@
+package org.sikrip;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Projects large coordinate arrays on all cores.
+ * <p>
+ * The arrays are split into chunks on the common fork/join pool. Every chunk writes its own disjoint range
+ * of the shared output arrays, so no synchronization is needed, and each worker thread uses its own
+ * Proj4J transform (see {@link UtmTransforms}). Points are projected independently by the same code as
+ * the sequential path, so the output is bit for bit identical to it.
+ */
+public final class ParallelProjection {
+
+    /**
+     * Points per task; smaller inputs are projected on the calling thread.
+     */
+    static final int CHUNK_SIZE = 1 << 14;
+
+    private ParallelProjection() {
+    }
+
+    public static void project(Projector projector, double[] lat, double[] lon, double[] x, double[] y) {
+        if (lat.length <= CHUNK_SIZE) {
+            projector.project(lat, lon, x, y);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new Chunk(projector, lat, lon, x, y, 0, lat.length));
+    }
+
+    private static final class Chunk extends RecursiveAction {
+        private final Projector projector;
+        private final double[] lat, lon, x, y;
+        private final int from, to;
+
+        Chunk(Projector projector, double[] lat, double[] lon, double[] x, double[] y, int from, int to) {
+            this.projector = projector;
+            this.lat = lat;
+            this.lon = lon;
+            this.x = x;
+            this.y = y;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                projector.project(lat, lon, x, y, from, to);
+                return;
+            }
+            final int mid = (from + to) >>> 1;
+            invokeAll(
+                new Chunk(projector, lat, lon, x, y, from, mid),
+                new Chunk(projector, lat, lon, x, y, mid, to)
+            );
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.sikrip;
+
+/**
+ * A projected lap with its spatial index and lap time, prepared once and then shared read-only by any
+ * number of concurrent comparisons.
+ */
+public final class PreparedLap {
+    public final ProjectedLap projected;
+    public final GridIndex index;
+    public final double lapTime;
+
+    private PreparedLap(ProjectedLap projected) {
+        this.projected = projected;
+        this.index = GridIndex.of(projected.x, projected.y);
+        this.lapTime = lapTime(projected.lap);
+    }
+
+    public static PreparedLap of(ProjectedLap lap) {
+        return new PreparedLap(lap);
+    }
+
+    /**
+     * Maps this lap onto {@code other}: for every sample of this lap, its position on the other lap.
+     */
+    public LapMapping mapOnto(PreparedLap other) {
+        return other.map(projected);
+    }
+
+    /**
+     * Maps {@code lap}, projected in this lap's frame, onto this lap. Only this lap's index is used, so the
+     * other lap need not be prepared.
+     */
+    public LapMapping map(ProjectedLap lap) {
+        return LapMapping.onSegments(lap.x, lap.y, projected.x, projected.y, index);
+    }
+
+    /**
+     * Duration of a lap from its timestamps, or from its sample count for fixed rate logs.
+     */
+    static double lapTime(LapData lap) {
+        if (lap.has(LapData.TIME)) {
+            final Channel time = lap.channel(LapData.TIME);
+            return time.get(time.size() - 1) - time.get(0);
+        }
+        return (lap.size() - 1) / LapComparisonByLocation.SAMPLE_RATE_HZ;
+    }
+}
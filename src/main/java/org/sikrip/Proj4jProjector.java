@@ -0,0 +1,41 @@
+package org.sikrip;
+
+import org.locationtech.proj4j.CoordinateTransform;
+import org.locationtech.proj4j.ProjCoordinate;
+
+/**
+ * WGS84 to UTM through Proj4J, using the calling thread's cached transform.
+ */
+public final class Proj4jProjector extends UtmProjector {
+
+    /**
+     * Source and target coordinates of the calling thread, reused across calls.
+     */
+    private static final ThreadLocal<ProjCoordinate[]> SCRATCH = ThreadLocal.withInitial(
+        () -> new ProjCoordinate[]{new ProjCoordinate(), new ProjCoordinate()}
+    );
+
+    public Proj4jProjector(int utmZone, boolean north) {
+        super(utmZone, north);
+    }
+
+    /**
+     * The calling thread's source/target coordinates are reused, so this method allocates nothing itself,
+     * per point or per call; that matters for live matching, where every call projects a single point.
+     */
+    @Override
+    public void project(double[] lat, double[] lon, double[] x, double[] y, int from, int to) {
+        final CoordinateTransform transform = UtmTransforms.get(utmZone, north);
+        final ProjCoordinate[] scratch = SCRATCH.get();
+        final ProjCoordinate src = scratch[0];
+        final ProjCoordinate dst = scratch[1];
+
+        for (int i = from; i < to; i++) {
+            src.x = lon[i];
+            src.y = lat[i];
+            transform.transform(src, dst);
+            x[i] = dst.x;
+            y[i] = dst.y;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.sikrip;
+
+/**
+ * A lap together with its planar projection and cumulative distance, the inputs of every comparison.
+ */
+public final class ProjectedLap {
+    public final LapData lap;
+    public final double[] x, y, distance;
+    public final Projector projector;
+
+    public ProjectedLap(LapData lap, double[] x, double[] y, double[] distance, Projector projector) {
+        this.lap = lap;
+        this.x = x;
+        this.y = y;
+        this.distance = distance;
+        this.projector = projector;
+    }
+
+    /**
+     * Projects the lap with the configured projector for its own first point.
+     */
+    public static ProjectedLap of(LapData lap) {
+        return of(lap, Projector.forTrack(lap.channel(LapData.LAT).get(0), lap.channel(LapData.LON).get(0)));
+    }
+
+    /**
+     * Projects the lap with the given projector (in parallel for long laps) and computes its cumulative
+     * distance.
+     */
+    public static ProjectedLap of(LapData lap, Projector projector) {
+        final double[] x = new double[lap.size()];
+        final double[] y = new double[lap.size()];
+        try (Instrumentation.Span span = Instrumentation.stage(Instrumentation.Stage.PROJECT, lap.size())) {
+            ParallelProjection.project(projector, lap.lat(), lap.lon(), x, y);
+        }
+        final double[] distance;
+        try (Instrumentation.Span span = Instrumentation.stage(Instrumentation.Stage.DISTANCE, lap.size())) {
+            distance = LapComparisonByLocation.computeCumulativeDistance(x, y);
+        }
+        return new ProjectedLap(lap, x, y, distance, projector);
+    }
+
+    /**
+     * Returns this lap in the frame of the given projector, re-projecting only if it differs.
+     */
+    public ProjectedLap projectedWith(Projector other) {
+        return projector.equals(other) ? this : of(lap, other);
+    }
+}
@@ -0,0 +1,63 @@
+package org.sikrip;
+
+/**
+ * Projects geographic coordinates (degrees) into a planar, metric x/y system.
+ */
+public interface Projector {
+
+    /**
+     * System property selecting the projection: {@code proj4j} (UTM, default), {@code tm} (UTM through
+     * {@link TransverseMercatorProjector}) or {@code enu} (local tangent plane).
+     */
+    String PROPERTY = "lapcomparison.projector";
+
+    /**
+     * System property fixing the origin of the {@code enu} projection for a track, as {@code <lat>,<lon>} in
+     * degrees, so every run on the track shares one frame whichever lap comes first.
+     */
+    String ORIGIN_PROPERTY = "lapcomparison.origin";
+
+    /**
+     * Projects points {@code [from, to)}, writing into the caller supplied {@code x}/{@code y} arrays.
+     * Implementations must allow concurrent calls on disjoint ranges.
+     */
+    void project(double[] lat, double[] lon, double[] x, double[] y, int from, int to);
+
+    /**
+     * Projects every point, writing into the caller supplied {@code x}/{@code y} arrays.
+     */
+    default void project(double[] lat, double[] lon, double[] x, double[] y) {
+        project(lat, lon, x, y, 0, lat.length);
+    }
+
+    /**
+     * Returns the configured projector for a track, given a reference point on it. Every lap of the
+     * track should be projected with the same instance so they end up in one frame. The {@code enu} origin
+     * is {@link #ORIGIN_PROPERTY} when set, the reference point otherwise.
+     */
+    static Projector forTrack(double lat, double lon) {
+        if ("enu".equalsIgnoreCase(System.getProperty(PROPERTY))) {
+            final String origin = System.getProperty(ORIGIN_PROPERTY);
+            if (origin == null) {
+                return new LocalTangentPlaneProjector(lat, lon);
+            }
+            final String[] latLon = origin.split(",");
+            if (latLon.length != 2) {
+                throw new IllegalArgumentException(ORIGIN_PROPERTY + " must be <lat>,<lon>, got " + origin);
+            }
+            return new LocalTangentPlaneProjector(
+                Double.parseDouble(latLon[0].trim()), Double.parseDouble(latLon[1].trim())
+            );
+        }
+        return utm(LapComparisonByLocation.utmZone(lon), lat >= 0);
+    }
+
+    /**
+     * Returns the configured WGS84 to UTM projector for a zone and hemisphere.
+     */
+    static UtmProjector utm(int utmZone, boolean north) {
+        return "tm".equalsIgnoreCase(System.getProperty(PROPERTY))
+            ? new TransverseMercatorProjector(utmZone, north)
+            : new Proj4jProjector(utmZone, north);
+    }
+}
@@ -0,0 +1,82 @@
+package org.sikrip;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in for a trackside GPS feed: replays a recorded lap over TCP in real time.
+ * <p>
+ * Every client gets the lap from its start, one {@link #FRAME_BYTES} byte frame per sample at the lap's
+ * own timing (or {@link LapComparisonByLocation#SAMPLE_RATE_HZ} without timestamps), divided by the
+ * speed-up factor. A frame is the sample time in seconds, latitude, longitude and speed as big-endian
+ * doubles, as written by {@link DataOutputStream}.
+ * <p>
+ * Usage: {@code ReplayServer [lap.csv or bundled lap] [--port=<port>] [--speedup=<factor>]}
+ */
+public class ReplayServer {
+
+    public static final int DEFAULT_PORT = 5555;
+    public static final int FRAME_BYTES = 4 * Double.BYTES;
+
+    public static void main(String[] args) throws Exception {
+        String lapName = "1m53.819s.csv";
+        int port = DEFAULT_PORT;
+        double speedup = 1;
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.startsWith("--speedup=")) {
+                speedup = Double.parseDouble(arg.substring("--speedup=".length()));
+            } else {
+                lapName = arg;
+            }
+        }
+        final LapData lap = LapDataLoader.loadFileOrResource(lapName);
+
+        try (ServerSocket server = new ServerSocket(port)) {
+            System.out.printf("Replaying %s (%d samples) on port %d%n", lapName, lap.size(), server.getLocalPort());
+            while (true) {
+                try (Socket client = server.accept()) {
+                    client.setTcpNoDelay(true);
+                    System.out.println("Client connected: " + client.getRemoteSocketAddress());
+                    replay(lap, new DataOutputStream(new BufferedOutputStream(client.getOutputStream())), speedup);
+                    System.out.println("Replay finished");
+                } catch (IOException e) {
+                    System.out.println("Client disconnected: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the lap's frames at its recorded pace, flushing every frame as a live feed would.
+     */
+    static void replay(LapData lap, DataOutputStream out, double speedup) throws IOException, InterruptedException {
+        final Channel time = lap.has(LapData.TIME) ? lap.channel(LapData.TIME) : null;
+        final Channel latitudes = lap.channel(LapData.LAT);
+        final Channel longitudes = lap.channel(LapData.LON);
+        final Channel speeds = lap.channel(LapData.SPEED);
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < lap.size(); i++) {
+            final double sampleTime = time != null
+                ? time.get(i) - time.get(0)
+                : i / LapComparisonByLocation.SAMPLE_RATE_HZ;
+            // pace against the start time, so delays do not accumulate
+            final long due = start + (long) (sampleTime / speedup * 1e9);
+            final long wait = due - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            out.writeDouble(sampleTime);
+            out.writeDouble(latitudes.get(i));
+            out.writeDouble(longitudes.get(i));
+            out.writeDouble(speeds.get(i));
+            out.flush();
+        }
+    }
+}
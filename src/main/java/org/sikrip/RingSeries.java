@@ -0,0 +1,63 @@
+package org.sikrip;
+
+/**
+ * Fixed capacity x/y series for live charts: appending is O(1) and never allocates, and once full the
+ * oldest points are overwritten. Safe to append from one thread while another copies it out.
+ */
+final class RingSeries {
+
+    private final double[] x;
+    private final double[] y;
+    private int next;
+    private int size;
+    private long appended;
+
+    RingSeries(int capacity) {
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+    }
+
+    synchronized void add(double xValue, double yValue) {
+        x[next] = xValue;
+        y[next] = yValue;
+        next = next + 1 == x.length ? 0 : next + 1;
+        size = Math.min(size + 1, x.length);
+        appended++;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Number of points ever appended, to tell whether the series changed since it was last copied.
+     */
+    synchronized long appended() {
+        return appended;
+    }
+
+    int capacity() {
+        return x.length;
+    }
+
+    /**
+     * Copies the points, oldest first, to the start of {@code xOut} and {@code yOut}, which must hold at
+     * least {@link #capacity()} points, and returns how many were copied. Costs at most the capacity,
+     * however long the series has been running.
+     */
+    synchronized int copyTo(double[] xOut, double[] yOut) {
+        final int oldest = size < x.length ? 0 : next;
+        final int firstPart = Math.min(size, x.length - oldest);
+        System.arraycopy(x, oldest, xOut, 0, firstPart);
+        System.arraycopy(y, oldest, yOut, 0, firstPart);
+        System.arraycopy(x, 0, xOut, firstPart, size - firstPart);
+        System.arraycopy(y, 0, yOut, firstPart, size - firstPart);
+        return size;
+    }
+
+    synchronized void clear() {
+        next = 0;
+        size = 0;
+        appended++;
+    }
+}
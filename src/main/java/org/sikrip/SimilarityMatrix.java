@@ -0,0 +1,389 @@
+package org.sikrip;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * All-pairs comparison of the laps of a session: an N×N matrix of mean speed difference or final time delta.
+ * <p>
+ * Every lap is projected and indexed once ({@link PreparedLap}). Neither metric is symmetric or
+ * antisymmetric: both are taken along the row lap, whose samples weight the track differently from the
+ * column lap's, so a cell cannot be derived from its mirror. Every pair is therefore matched both ways,
+ * {@code N(N-1)} matchings in all, as many as filling every cell independently: the matrix costs twice
+ * its {@code N(N-1)/2} pairs. What walking only the upper triangle buys is locality, as both cells of a
+ * pair are computed by the same task while both laps' arrays are in cache. Pairs are grouped in square
+ * tiles of {@link #TILE_SIZE} laps so that a task keeps reusing the same few laps' arrays, and the tiles
+ * are scheduled on a work-stealing pool.
+ * <p>
+ * Rows are streamed to a {@link RowSink} in order as soon as every tile touching them is done, and are not
+ * kept afterwards.
+ * <p>
+ * Usage: {@code SimilarityMatrix [--metric=speed|time] [--out=<matrix.csv|matrix.bin>] <laps or directories...>}
+ */
+public class SimilarityMatrix {
+
+    static final int TILE_SIZE = 8;
+    private static final long PROGRESS_INTERVAL_NANOS = 1_000_000_000L;
+
+    public enum Metric {
+        /**
+         * Mean of column lap speed minus row lap speed, along the row lap.
+         */
+        SPEED,
+        /**
+         * Time the column lap lost to the row lap at the end of the lap, in seconds.
+         */
+        TIME
+    }
+
+    /**
+     * Receives the rows of the matrix, in row order, from whichever thread completes them.
+     */
+    public interface RowSink {
+        void row(int row, double[] values) throws IOException;
+
+        /**
+         * Called once after the last row.
+         */
+        default void end() throws IOException {
+        }
+    }
+
+    /**
+     * Called with the number of pairs done so far and the total, each pair being matched both ways.
+     */
+    @FunctionalInterface
+    public interface Progress {
+        void update(long done, long total);
+    }
+
+    private final List<PreparedLap> laps;
+    private final Metric metric;
+
+    public SimilarityMatrix(List<PreparedLap> laps, Metric metric) {
+        this.laps = laps;
+        this.metric = metric;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Metric metric = Metric.SPEED;
+        Path out = null;
+        final List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--metric=")) {
+                metric = Metric.valueOf(arg.substring("--metric=".length()).toUpperCase(Locale.ROOT));
+            } else if (arg.startsWith("--out=")) {
+                out = Path.of(arg.substring("--out=".length()));
+            } else {
+                files.addAll(BatchComparison.lapFiles(Path.of(arg)));
+            }
+        }
+        if (files.size() < 2) {
+            System.err.println(
+                "Usage: SimilarityMatrix [--metric=speed|time] [--out=<matrix.csv|matrix.bin>] <laps or directories...>"
+            );
+            System.exit(1);
+        }
+
+        final List<PreparedLap> laps = prepare(files);
+        final SimilarityMatrix matrix = new SimilarityMatrix(laps, metric);
+        final long start = System.nanoTime();
+        final Progress progress = (done, total) ->
+            System.err.printf("\r%d / %d pairs, %.1f pairs/s", done, total, done / ((System.nanoTime() - start) / 1e9));
+        final List<String> names = files.stream().map(file -> file.getFileName().toString()).toList();
+        if (out == null) {
+            matrix.compute(ForkJoinPool.commonPool(), progress, csvSink(names, System.out));
+        } else {
+            try (OutputStream stream = Files.newOutputStream(out)) {
+                final RowSink sink = out.toString().endsWith(".bin")
+                    ? binarySink(laps.size(), stream)
+                    : csvSink(names, stream);
+                matrix.compute(ForkJoinPool.commonPool(), progress, sink);
+            }
+        }
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        final long pairs = pairs(laps.size());
+        System.err.printf("%n%d pairs in %.2f s (%.1f pairs/s)%n", pairs, seconds, pairs / seconds);
+    }
+
+    /**
+     * Loads the laps in parallel and prepares them all, each projected once, in the first lap's projection.
+     */
+    public static List<PreparedLap> prepare(List<Path> files) {
+        final List<LapData> loaded = files.parallelStream().map(BatchComparison::load).toList();
+        final LapData first = loaded.get(0);
+        final Projector projector = Projector.forTrack(first.lat()[0], first.lon()[0]);
+        return loaded.parallelStream()
+            .map(lap -> PreparedLap.of(ProjectedLap.of(lap, projector)))
+            .toList();
+    }
+
+    /**
+     * Computes the whole matrix on the given pool, see {@link #compute(ForkJoinPool, Progress, RowSink)}.
+     */
+    public double[][] compute(ForkJoinPool pool, Progress progress) {
+        final double[][] values = new double[laps.size()][];
+        try {
+            compute(pool, progress, (row, rowValues) -> values[row] = rowValues);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return values;
+    }
+
+    /**
+     * Computes the matrix on the given pool, handing each row to {@code sink} once complete. {@code progress}
+     * is called at most once a second, from a worker thread, and once more at the end; it may be {@code null}.
+     */
+    public void compute(ForkJoinPool pool, Progress progress, RowSink sink) throws IOException {
+        final int n = laps.size();
+        final double[][] values = new double[n][n];
+        final AtomicLong done = new AtomicLong();
+        final AtomicLong lastReport = new AtomicLong(System.nanoTime());
+        final long total = pairs(n);
+        final RowWriter writer = new RowWriter(values, sink);
+
+        final List<ForkJoinTask<?>> tiles = new ArrayList<>();
+        for (int row = 0; row < n; row += TILE_SIZE) {
+            for (int col = row; col < n; col += TILE_SIZE) {
+                tiles.add(new Tile(row, col, values, done, lastReport, total, progress, writer));
+            }
+        }
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tiles);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        sink.end();
+        if (progress != null) {
+            progress.update(done.get(), total);
+        }
+    }
+
+    /**
+     * Metric of lap {@code col} against lap {@code row}, along lap {@code row}.
+     */
+    double pair(int row, int col) {
+        final PreparedLap lapA = laps.get(row);
+        final PreparedLap lapB = laps.get(col);
+        final LapMapping mapping = lapA.mapOnto(lapB);
+        return switch (metric) {
+            case SPEED -> {
+                final double[] speedA = lapA.projected.lap.speed();
+                final double[] speedB = mapping.apply(lapB.projected.lap.speed());
+                double sum = 0;
+                for (int i = 0; i < speedA.length; i++) {
+                    sum += speedB[i] - speedA[i];
+                }
+                yield speedA.length == 0 ? 0 : sum / speedA.length;
+            }
+            case TIME -> {
+                final double[] delta = mapping.timeDelta(
+                    lapA.projected.lap, lapB.projected.lap, LapComparisonByLocation.SAMPLE_RATE_HZ
+                );
+                yield delta.length == 0 ? 0 : delta[delta.length - 1];
+            }
+        };
+    }
+
+    static long pairs(int laps) {
+        return (long) laps * (laps - 1) / 2;
+    }
+
+    /**
+     * Writes the matrix as CSV with a header row and a leading column of lap names.
+     */
+    public static void writeCsv(List<String> names, double[][] values, OutputStream out) throws IOException {
+        write(values, csvSink(names, out));
+    }
+
+    /**
+     * Writes the matrix as a little-endian int {@code N} followed by {@code N×N} doubles in row order.
+     */
+    public static void writeBinary(double[][] values, OutputStream out) throws IOException {
+        write(values, binarySink(values.length, out));
+    }
+
+    private static void write(double[][] values, RowSink sink) throws IOException {
+        for (int row = 0; row < values.length; row++) {
+            sink.row(row, values[row]);
+        }
+        sink.end();
+    }
+
+    /**
+     * CSV sink: writes the header row at once, then each row with its lap name.
+     */
+    public static RowSink csvSink(List<String> names, OutputStream out) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out), 1 << 16);
+        writer.write("lap");
+        for (String name : names) {
+            writer.write(',');
+            writer.write(name);
+        }
+        writer.write('\n');
+        return new RowSink() {
+            @Override
+            public void row(int row, double[] values) throws IOException {
+                writer.write(names.get(row));
+                for (double value : values) {
+                    writer.write(',');
+                    writer.write(Double.toString(value));
+                }
+                writer.write('\n');
+            }
+
+            @Override
+            public void end() throws IOException {
+                writer.flush();
+            }
+        };
+    }
+
+    /**
+     * Binary sink, see {@link #writeBinary}: writes {@code N} at once, then each row's doubles.
+     */
+    public static RowSink binarySink(int n, OutputStream out) throws IOException {
+        final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        final ByteBuffer buffer = ByteBuffer.allocate(Math.max(Integer.BYTES, n * Double.BYTES))
+            .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(n);
+        data.write(buffer.array(), 0, Integer.BYTES);
+        return new RowSink() {
+            @Override
+            public void row(int row, double[] values) throws IOException {
+                buffer.clear();
+                buffer.asDoubleBuffer().put(values);
+                data.write(buffer.array(), 0, n * Double.BYTES);
+            }
+
+            @Override
+            public void end() throws IOException {
+                data.flush();
+            }
+        };
+    }
+
+    /**
+     * Hands bands of {@link #TILE_SIZE} rows to the sink in order. A band is complete once every tile in its
+     * row or column band is done; completed bands wait for the ones before them, then are released.
+     */
+    private static final class RowWriter {
+        private final double[][] values;
+        private final RowSink sink;
+        private final AtomicIntegerArray remainingTiles;
+        private final boolean[] complete;
+        private int nextBand;
+
+        RowWriter(double[][] values, RowSink sink) {
+            this.values = values;
+            this.sink = sink;
+            final int bands = (values.length + TILE_SIZE - 1) / TILE_SIZE;
+            this.remainingTiles = new AtomicIntegerArray(bands);
+            for (int band = 0; band < bands; band++) {
+                remainingTiles.set(band, bands);
+            }
+            this.complete = new boolean[bands];
+        }
+
+        void tileDone(int rowBand, int colBand) {
+            final boolean rowsComplete = remainingTiles.decrementAndGet(rowBand) == 0;
+            final boolean colsComplete = colBand != rowBand && remainingTiles.decrementAndGet(colBand) == 0;
+            if (rowsComplete || colsComplete) {
+                write(rowsComplete ? rowBand : -1, colsComplete ? colBand : -1);
+            }
+        }
+
+        private synchronized void write(int band1, int band2) {
+            if (band1 >= 0) {
+                complete[band1] = true;
+            }
+            if (band2 >= 0) {
+                complete[band2] = true;
+            }
+            try {
+                while (nextBand < complete.length && complete[nextBand]) {
+                    final int end = Math.min(values.length, (nextBand + 1) * TILE_SIZE);
+                    for (int row = nextBand * TILE_SIZE; row < end; row++) {
+                        sink.row(row, values[row]);
+                        values[row] = null;
+                    }
+                    nextBand++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * The pairs of laps {@code [row, row + TILE_SIZE) × [col, col + TILE_SIZE)} above the diagonal, each
+     * matched both ways.
+     */
+    private final class Tile extends RecursiveAction {
+        private final int row;
+        private final int col;
+        private final double[][] values;
+        private final AtomicLong done;
+        private final AtomicLong lastReport;
+        private final long total;
+        private final Progress progress;
+        private final RowWriter writer;
+
+        Tile(int row, int col, double[][] values, AtomicLong done, AtomicLong lastReport, long total,
+             Progress progress, RowWriter writer) {
+            this.row = row;
+            this.col = col;
+            this.values = values;
+            this.done = done;
+            this.lastReport = lastReport;
+            this.total = total;
+            this.progress = progress;
+            this.writer = writer;
+        }
+
+        @Override
+        protected void compute() {
+            final int n = values.length;
+            int pairs = 0;
+            for (int i = row; i < Math.min(row + TILE_SIZE, n); i++) {
+                for (int j = Math.max(col, i + 1); j < Math.min(col + TILE_SIZE, n); j++) {
+                    // two matchings: the metric differs by direction
+                    values[i][j] = pair(i, j);
+                    values[j][i] = pair(j, i);
+                    pairs++;
+                }
+            }
+            final long completed = done.addAndGet(pairs);
+            final long now = System.nanoTime();
+            final long last = lastReport.get();
+            if (progress != null && now - last >= PROGRESS_INTERVAL_NANOS && lastReport.compareAndSet(last, now)) {
+                progress.update(completed, total);
+            }
+            writer.tileDone(row / TILE_SIZE, col / TILE_SIZE);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.sikrip;
+
+/**
+ * Hand written WGS84 to UTM projection using the Krüger series to sixth order in the third flattening
+ * (Karney, "Transverse Mercator with an accuracy of a few nanometers", 2011).
+ * <p>
+ * Within a UTM zone it agrees with Proj4J to well below a millimetre, at a fraction of the cost:
+ * the loop is branch free, works on primitive arrays and evaluates the series with Clenshaw summation.
+ */
+public final class TransverseMercatorProjector extends UtmProjector {
+
+    private static final double A = 6378137.0;
+    private static final double F = 1 / 298.257223563;
+    private static final double K0 = 0.9996;
+    private static final double FALSE_EASTING = 500_000.0;
+    private static final double FALSE_NORTHING_SOUTH = 10_000_000.0;
+
+    private static final double E = Math.sqrt(F * (2 - F));
+    private static final double N = F / (2 - F);
+    private static final double N2 = N * N, N3 = N2 * N, N4 = N3 * N, N5 = N4 * N, N6 = N5 * N;
+
+    /**
+     * Scaled rectifying radius, k0 * A.
+     */
+    private static final double K0_A = K0 * A / (1 + N) * (1 + N2 / 4 + N4 / 64 + N6 / 256);
+
+    private static final double ALPHA1 =
+        N / 2 - 2 * N2 / 3 + 5 * N3 / 16 + 41 * N4 / 180 - 127 * N5 / 288 + 7891 * N6 / 37800;
+    private static final double ALPHA2 =
+        13 * N2 / 48 - 3 * N3 / 5 + 557 * N4 / 1440 + 281 * N5 / 630 - 1983433 * N6 / 1935360;
+    private static final double ALPHA3 =
+        61 * N3 / 240 - 103 * N4 / 140 + 15061 * N5 / 26880 + 167603 * N6 / 181440;
+    private static final double ALPHA4 =
+        49561 * N4 / 161280 - 179 * N5 / 168 + 6601661 * N6 / 7257600;
+    private static final double ALPHA5 =
+        34729 * N5 / 80640 - 3418889 * N6 / 1995840;
+    private static final double ALPHA6 =
+        212378941 * N6 / 319334400;
+
+    private final double centralMeridian;
+    private final double falseNorthing;
+
+    public TransverseMercatorProjector(int utmZone, boolean north) {
+        super(utmZone, north);
+        this.centralMeridian = Math.toRadians((utmZone - 1) * 6 - 180 + 3);
+        this.falseNorthing = north ? 0 : FALSE_NORTHING_SOUTH;
+    }
+
+    @Override
+    public void project(double[] lat, double[] lon, double[] x, double[] y, int from, int to) {
+        for (int i = from; i < to; i++) {
+            final double phi = Math.toRadians(lat[i]);
+            final double lambda = Math.toRadians(lon[i]) - centralMeridian;
+
+            // conformal latitude, as tan
+            final double sinPhi = Math.sin(phi);
+            final double tau = Math.sinh(atanh(sinPhi) - E * atanh(E * sinPhi));
+            final double cosLambda = Math.cos(lambda);
+
+            // Gauss-Schreiber transverse Mercator
+            final double xiP = Math.atan2(tau, cosLambda);
+            final double etaP = atanh(Math.sin(lambda) / Math.sqrt(1 + tau * tau));
+
+            // Clenshaw summation of sum(alpha_j * sin(2j * (xi' + i eta'))) in complex arithmetic
+            final double sin2Xi = Math.sin(2 * xiP);
+            final double cos2Xi = Math.cos(2 * xiP);
+            final double exp2Eta = Math.exp(2 * etaP);
+            final double sinh2Eta = (exp2Eta - 1 / exp2Eta) / 2;
+            final double cosh2Eta = (exp2Eta + 1 / exp2Eta) / 2;
+
+            final double ar = 2 * cos2Xi * cosh2Eta;
+            final double ai = -2 * sin2Xi * sinh2Eta;
+
+            double y1r = ALPHA6, y1i = 0;
+            double y2r = 0, y2i = 0;
+            double tr, ti;
+            tr = ALPHA5 + ar * y1r - ai * y1i - y2r;
+            ti = ar * y1i + ai * y1r - y2i;
+            y2r = y1r; y2i = y1i; y1r = tr; y1i = ti;
+            tr = ALPHA4 + ar * y1r - ai * y1i - y2r;
+            ti = ar * y1i + ai * y1r - y2i;
+            y2r = y1r; y2i = y1i; y1r = tr; y1i = ti;
+            tr = ALPHA3 + ar * y1r - ai * y1i - y2r;
+            ti = ar * y1i + ai * y1r - y2i;
+            y2r = y1r; y2i = y1i; y1r = tr; y1i = ti;
+            tr = ALPHA2 + ar * y1r - ai * y1i - y2r;
+            ti = ar * y1i + ai * y1r - y2i;
+            y2r = y1r; y2i = y1i; y1r = tr; y1i = ti;
+            tr = ALPHA1 + ar * y1r - ai * y1i - y2r;
+            ti = ar * y1i + ai * y1r - y2i;
+
+            // multiply by sin(2 zeta') = sin2Xi cosh2Eta + i cos2Xi sinh2Eta
+            final double sr = sin2Xi * cosh2Eta;
+            final double si = cos2Xi * sinh2Eta;
+            final double xi = xiP + tr * sr - ti * si;
+            final double eta = etaP + tr * si + ti * sr;
+
+            x[i] = FALSE_EASTING + K0_A * eta;
+            y[i] = falseNorthing + K0_A * xi;
+        }
+    }
+
+    private static double atanh(double v) {
+        return 0.5 * Math.log((1 + v) / (1 - v));
+    }
+}
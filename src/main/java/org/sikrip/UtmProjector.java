@@ -0,0 +1,34 @@
+package org.sikrip;
+
+/**
+ * Base class of the WGS84 to UTM projectors. Two UTM projectors are equal when they target the same
+ * zone and hemisphere, whatever their implementation.
+ */
+public abstract class UtmProjector implements Projector {
+
+    protected final int utmZone;
+    protected final boolean north;
+
+    protected UtmProjector(int utmZone, boolean north) {
+        this.utmZone = utmZone;
+        this.north = north;
+    }
+
+    public int utmZone() {
+        return utmZone;
+    }
+
+    public boolean isNorth() {
+        return north;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof UtmProjector other && other.utmZone == utmZone && other.north == north;
+    }
+
+    @Override
+    public int hashCode() {
+        return north ? utmZone : -utmZone;
+    }
+}
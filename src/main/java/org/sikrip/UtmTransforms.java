@@ -0,0 +1,48 @@
+package org.sikrip;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.locationtech.proj4j.CRSFactory;
+import org.locationtech.proj4j.CoordinateReferenceSystem;
+import org.locationtech.proj4j.CoordinateTransform;
+import org.locationtech.proj4j.CoordinateTransformFactory;
+
+/**
+ * Process wide cache of WGS84 to UTM transforms, keyed by zone and hemisphere.
+ * <p>
+ * The parsed coordinate reference systems are shared, but every thread gets its own
+ * {@link CoordinateTransform} because Proj4J transforms keep mutable scratch state.
+ */
+final class UtmTransforms {
+
+    private static final CRSFactory CRS_FACTORY = new CRSFactory();
+    private static final CoordinateReferenceSystem WGS84 = createCrs("epsg:4326");
+    private static final Map<Integer, ThreadLocal<CoordinateTransform>> TRANSFORMS = new ConcurrentHashMap<>();
+
+    private UtmTransforms() {
+    }
+
+    /**
+     * Returns the calling thread's transform from WGS84 to the given UTM zone.
+     */
+    static CoordinateTransform get(int utmZone, boolean north) {
+        // plain lookup first: the capturing lambda below would be allocated on every call
+        final ThreadLocal<CoordinateTransform> transform = TRANSFORMS.get(north ? utmZone : -utmZone);
+        return transform != null ? transform.get() : create(utmZone, north).get();
+    }
+
+    private static ThreadLocal<CoordinateTransform> create(int utmZone, boolean north) {
+        return TRANSFORMS.computeIfAbsent(north ? utmZone : -utmZone, key -> {
+            final CoordinateReferenceSystem utm =
+                createCrs("epsg:" + (north ? "326" : "327") + String.format("%02d", utmZone));
+            final CoordinateTransformFactory factory = new CoordinateTransformFactory();
+            return ThreadLocal.withInitial(() -> factory.createTransform(WGS84, utm));
+        });
+    }
+
+    private static CoordinateReferenceSystem createCrs(String name) {
+        synchronized (CRS_FACTORY) {
+            return CRS_FACTORY.createFromName(name);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.sikrip;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Binary laps must read back exactly what was written, including across the chunks a column is mapped in.
+ */
+class BinaryLapTest {
+
+    // 1001 rows span 125 full 64 byte chunks of doubles plus one partial chunk
+    private static final int ROWS = 1001;
+    private static final int SMALL_CHUNK_SHIFT = 6;
+
+    @Test
+    void roundTripsDoublesAcrossChunkBoundaries() throws IOException {
+        roundTrip(false);
+    }
+
+    @Test
+    void roundTripsFloatsAcrossChunkBoundaries() throws IOException {
+        roundTrip(true);
+    }
+
+    @Test
+    void rejectsFilesShorterThanTheHeader() throws IOException {
+        final Path file = Files.createTempFile("short", BinaryLap.EXTENSION);
+        try {
+            Files.write(file, new byte[BinaryLap.HEADER_SIZE - 1]);
+            assertThrows(IOException.class, () -> BinaryLap.open(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void roundTrip(boolean floats) throws IOException {
+        final ProjectedLap lap = ProjectedLap.of(syntheticLap(), Projector.utm(35, true));
+        final Path file = Files.createTempFile("lap", BinaryLap.EXTENSION);
+        try {
+            BinaryLap.write(file, lap, floats);
+            final BinaryLap chunked = BinaryLap.open(file, SMALL_CHUNK_SHIFT);
+            final BinaryLap whole = BinaryLap.open(file);
+            assertEquals(ROWS, chunked.rows());
+
+            for (BinaryLap.Column column : BinaryLap.Column.values()) {
+                final double[] expected = expected(lap, column, floats);
+                assertArrayEquals(expected, chunked.toArray(column), column.name());
+                assertArrayEquals(expected, whole.toArray(column), column.name());
+                for (int row = 0; row < ROWS; row++) {
+                    assertEquals(expected[row], chunked.get(column, row), column.name() + " row " + row);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static double[] expected(ProjectedLap lap, BinaryLap.Column column, boolean floats) {
+        final double[] values = switch (column) {
+            case LAT -> lap.lap.lat();
+            case LON -> lap.lap.lon();
+            case SPEED -> lap.lap.speed();
+            case X -> lap.x;
+            case Y -> lap.y;
+            case DISTANCE -> lap.distance;
+            case TIME -> lap.lap.time();
+        };
+        if (!floats || column.width(BinaryLap.FLAG_FLOAT) == Double.BYTES) {
+            return values;
+        }
+        final double[] narrowed = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            narrowed[i] = (float) values[i];
+        }
+        return narrowed;
+    }
+
+    /**
+     * A circle of about 1.5 km logged at 10 Hz, with varying speed.
+     */
+    private static LapData syntheticLap() {
+        final double[] lat = new double[ROWS];
+        final double[] lon = new double[ROWS];
+        final double[] speed = new double[ROWS];
+        final double[] time = new double[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            final double angle = 2 * Math.PI * i / ROWS;
+            lat[i] = 41.07 + 0.002 * Math.sin(angle);
+            lon[i] = 23.51 + 0.0027 * Math.cos(angle);
+            speed[i] = 40 + 10 * Math.sin(3 * angle);
+            time[i] = i / 10.0;
+        }
+        return new LapData(lat, lon, speed, time);
+    }
+}
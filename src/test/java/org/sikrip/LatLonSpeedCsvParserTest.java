@@ -0,0 +1,152 @@
+package org.sikrip;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The hand written CSV parser must read numbers exactly as {@link Double#parseDouble} does, and accept or
+ * reject the same files as a regular CSV reader.
+ */
+class LatLonSpeedCsvParserTest {
+
+    @Test
+    void parsesNamedColumns() throws IOException {
+        final LapData lap = parse("lat,lon,speed,rpm\n40.5,22.25,100,7000\n40.6,22.5,101.5,7100\n");
+        assertEquals(2, lap.size());
+        assertArrayEquals(new double[]{40.5, 40.6}, lap.lat());
+        assertArrayEquals(new double[]{22.25, 22.5}, lap.lon());
+        assertArrayEquals(new double[]{100, 101.5}, lap.speed());
+        assertArrayEquals(new double[]{7000, 7100}, lap.channel("rpm").doubles());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "-1.5", "+2", "-0", "0", "-.5", "5.", "1e3", "1E+3", "1e-3", "-2.5e2", "+6.02e23", "-1.6e-19"
+    })
+    void parsesSignsAndExponents(String number) throws IOException {
+        assertSameDouble(Double.parseDouble(number), parseSpeed(number), number);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "9007199254740992", "9007199254740993", "9007199254740995", "1e22", "1e23", "8.5e-23",
+        "2.2250738585072014E-308", "2.2250738585072011E-308", "4.9e-324", "2.5e-324", "1e-400", "1e400",
+        "1.7976931348623157e308", "1.7976931348623159e308", "0.30000000000000004", "123456789012345678901234567890",
+        "0.000000000000000000000000000001234567890123456789"
+    })
+    void fallsBackBeyondTheFastPath(String number) throws IOException {
+        assertSameDouble(Double.parseDouble(number), parseSpeed(number), number);
+    }
+
+    @Test
+    void matchesParseDoubleOnRandomNumbers() throws IOException {
+        final Random random = new Random(42);
+        final StringBuilder csv = new StringBuilder("lat,lon,speed\n");
+        final String[] numbers = new String[10_000];
+        for (int i = 0; i < numbers.length; i++) {
+            final StringBuilder digits = new StringBuilder();
+            final int length = 1 + random.nextInt(20);
+            for (int d = 0; d < length; d++) {
+                digits.append((char) ('0' + random.nextInt(10)));
+            }
+            digits.insert(random.nextInt(length + 1), '.');
+            if (random.nextBoolean()) {
+                digits.append('e').append(random.nextInt(660) - 330);
+            }
+            numbers[i] = (random.nextBoolean() ? "-" : "") + digits;
+            csv.append("0,0,").append(numbers[i]).append('\n');
+        }
+        final double[] speed = parse(csv.toString()).speed();
+        for (int i = 0; i < numbers.length; i++) {
+            assertSameDouble(Double.parseDouble(numbers[i]), speed[i], numbers[i]);
+        }
+    }
+
+    @Test
+    void acceptsCrlfLineEndingsAndBlankLines() throws IOException {
+        final LapData lap = parse("lat,lon,speed\r\n1,2,3\r\n\r\n  \r\n4,5,6\r\n");
+        assertArrayEquals(new double[]{1, 4}, lap.lat());
+        assertArrayEquals(new double[]{3, 6}, lap.speed());
+    }
+
+    @Test
+    void readsALastRowWithoutNewline() throws IOException {
+        assertArrayEquals(new double[]{3, 6}, parse("lat,lon,speed\n1,2,3\n4,5,6").speed());
+    }
+
+    @Test
+    void readsQuotedAndPaddedFields() throws IOException {
+        final LapData lap = parse("\"lat\",\"lon\",\"speed\",note\n\"1.5\", 2 ,\" 3 \",\"a, \"\"b\"\"\"\n");
+        assertArrayEquals(new double[]{1.5}, lap.lat());
+        assertArrayEquals(new double[]{2}, lap.lon());
+        assertArrayEquals(new double[]{3}, lap.speed());
+        assertTrue(Double.isNaN(lap.channel("note").get(0)));
+    }
+
+    @Test
+    void keepsMissingAuxiliaryCellsAsNaN() throws IOException {
+        final LapData lap = parse("lat,lon,speed,rpm,status\n1,2,3,,OK\n1,2,3,NaN,\n1,2,3,7000,x\n");
+        final double[] rpm = lap.channel("rpm").doubles();
+        assertTrue(Double.isNaN(rpm[0]));
+        assertTrue(Double.isNaN(rpm[1]));
+        assertEquals(7000, rpm[2], 0);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "\"1 2\"", "1 2", "1\"2\"", "1.2.3", "1e", "1e5e5", "--1", "+-1", "1-", "-", ".", "abc", "", "1e--5"
+    })
+    void rejectsMalformedStandardFields(String field) {
+        assertThrows(NumberFormatException.class, () -> parse("lat,lon,speed\n1,2,3\n1,2," + field + "\n"));
+    }
+
+    @Test
+    void rejectsASignAloneAtTheEndOfALine() {
+        // a lone sign must not be mistaken for a blank line
+        assertThrows(NumberFormatException.class, () -> parse("lat,lon,speed\n1,2,3\n-\n4,5,6\n"));
+    }
+
+    @Test
+    void rejectsRowsWithMissingColumns() {
+        assertThrows(NumberFormatException.class, () -> parse("lat,lon,speed\n1,2\n"));
+    }
+
+    @Test
+    void stripsAByteOrderMark() throws IOException {
+        assertArrayEquals(new double[]{1}, parse("\uFEFFlat,lon,speed\n1,2,3\n").lat());
+    }
+
+    @Test
+    void takesUnnamedRequiredColumnsByPosition() throws IOException {
+        assertArrayEquals(new double[]{3}, parse("lat,lon,Speed (km/h)\n1,2,3\n").speed());
+
+        final LapData lap = parse("time,a,b,c\n0.1,1,2,3\n");
+        assertArrayEquals(new double[]{0.1}, lap.time());
+        assertArrayEquals(new double[]{1}, lap.lat());
+        assertArrayEquals(new double[]{3}, lap.speed());
+        assertFalse(lap.has("a"));
+    }
+
+    private static LapData parse(String csv) throws IOException {
+        return LatLonSpeedCsvParser.parse(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static double parseSpeed(String number) throws IOException {
+        return parse("lat,lon,speed\n0,0," + number + "\n").speed()[0];
+    }
+
+    private static void assertSameDouble(double expected, double actual, String number) {
+        assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual), number);
+    }
+}
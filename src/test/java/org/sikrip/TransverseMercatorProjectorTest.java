@@ -0,0 +1,35 @@
+package org.sikrip;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The Krüger series projector must agree with Proj4J to under a millimetre on real laps.
+ */
+class TransverseMercatorProjectorTest {
+
+    private static final double TOLERANCE_METRES = 0.001;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"1m34.344s.csv", "1m53.819s.csv"})
+    void matchesProj4jOnBundledLaps(String lapName) throws Exception {
+        final LapData lap = LapDataLoader.loadResource(lapName);
+        final double[] lat = lap.lat();
+        final double[] lon = lap.lon();
+        final int zone = LapComparisonByLocation.utmZone(lon[0]);
+        final boolean north = lat[0] >= 0;
+
+        final int n = lap.size();
+        final double[] xRef = new double[n], yRef = new double[n], xTm = new double[n], yTm = new double[n];
+        new Proj4jProjector(zone, north).project(lat, lon, xRef, yRef);
+        new TransverseMercatorProjector(zone, north).project(lat, lon, xTm, yTm);
+
+        double maxError = 0;
+        for (int i = 0; i < n; i++) {
+            maxError = Math.max(maxError, Math.hypot(xTm[i] - xRef[i], yTm[i] - yRef[i]));
+        }
+        assertTrue(maxError < TOLERANCE_METRES, lapName + " deviates from Proj4J by " + maxError + " m");
+    }
+}